@@ -1,18 +1,43 @@
+import java.io.*;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 public class StudentDatabase {
     private static final String DB_URL = "jdbc:sqlite:students.db";
     private static Connection conn;
     private static Scanner sc = new Scanner(System.in);
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final int MAX_REJECTS_SHOWN = 20;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int NAME_SEARCH_LIMIT = 25;
+    private static final int REPORT_FETCH_SIZE = 500;
+    // Rows the driver pulls per round trip when listing; independent of the page size shown.
+    private static final int LIST_FETCH_SIZE = 100;
+
+    // Prepared statements are cached per SQL text for the life of the connection,
+    // so each operation reuses an already-compiled statement instead of re-parsing it.
+    private static final Map<String, PreparedStatement> stmtCache = new HashMap<>();
+    private static long cacheHits = 0;
+    private static long cacheMisses = 0;
 
     public static void main(String[] args) {
+        boolean batch = args.length > 0 && args[0].equals("--batch");
+        int exitCode = 0;
         try {
             // Load driver
             Class.forName("org.sqlite.JDBC");
             conn = DriverManager.getConnection(DB_URL);
             createTable();
 
+            if (batch) {
+                if (runBatch(args.length > 1 ? args[1] : "-") > 0) exitCode = 1;
+                return;
+            }
+
             int choice;
             do {
                 System.out.println("\n===== Student Information System =====");
@@ -22,7 +47,8 @@ public class StudentDatabase {
                 System.out.println("4. Update Student");
                 System.out.println("5. Delete Student");
                 System.out.println("6. Reports");
-                System.out.println("7. Exit");
+                System.out.println("7. Bulk Import (CSV)");
+                System.out.println("8. Exit");
                 System.out.print("Enter choice: ");
                 choice = sc.nextInt();
                 sc.nextLine();
@@ -34,14 +60,49 @@ public class StudentDatabase {
                     case 4 -> updateStudent();
                     case 5 -> deleteStudent();
                     case 6 -> showReports();
-                    case 7 -> System.out.println("Exiting...");
+                    case 7 -> bulkImport();
+                    case 8 -> System.out.println("Exiting...");
                     default -> System.out.println("Invalid choice.");
                 }
-            } while (choice != 7);
-
-            conn.close();
+            } while (choice != 8);
         } catch (Exception e) {
             System.out.println("Database error: " + e.getMessage());
+            if (batch) exitCode = 2;
+        } finally {
+            closeConnection();
+            // Inside finally because the batch branch returns from the try.
+            if (exitCode != 0) System.exit(exitCode);
+        }
+    }
+
+    private static PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement pstmt = stmtCache.get(sql);
+        if (pstmt != null) {
+            cacheHits++;
+            // Also drop any batch a failed caller queued, so it can't run with the next one.
+            pstmt.clearParameters();
+            pstmt.clearBatch();
+            return pstmt;
+        }
+        cacheMisses++;
+        pstmt = conn.prepareStatement(sql);
+        stmtCache.put(sql, pstmt);
+        return pstmt;
+    }
+
+    private static void closeConnection() {
+        for (PreparedStatement pstmt : stmtCache.values()) {
+            try {
+                pstmt.close();
+            } catch (SQLException e) {
+                System.out.println("Error closing statement: " + e.getMessage());
+            }
+        }
+        stmtCache.clear();
+        try {
+            if (conn != null) conn.close();
+        } catch (SQLException e) {
+            System.out.println("Error closing connection: " + e.getMessage());
         }
     }
 
@@ -53,7 +114,114 @@ public class StudentDatabase {
                     "course VARCHAR(50)," +
                     "year_level INT" +
                     ");";
-        conn.createStatement().execute(sql);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+            // Composite indexes let filtered, keyset-paged listings seek straight to the page.
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_students_course ON Students(course, student_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_students_year ON Students(year_level, student_id)");
+            // INSERT OR REPLACE only fires the delete triggers when recursive triggers are on.
+            stmt.execute("PRAGMA recursive_triggers = ON");
+            inTransaction(stmt, StudentDatabase::createNameIndex);
+            inTransaction(stmt, StudentDatabase::createEnrollmentSummary);
+        }
+    }
+
+    private interface SchemaStep {
+        void apply(Statement stmt) throws SQLException;
+    }
+
+    // Runs a multi-statement schema step as one transaction, so a failure part way leaves no
+    // half-built table or trigger set for the next start to mistake for a finished one.
+    private static void inTransaction(Statement stmt, SchemaStep step) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            step.apply(stmt);
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // FTS5 index over first/last name, kept in sync by triggers. Prefix indexes make "jo*"-style
+    // queries a direct lookup. Students.rowid cannot key it: student_id is a VARCHAR key, so
+    // VACUUM may renumber those rowids. Students_fts_map instead gives every student a stable
+    // INTEGER PRIMARY KEY that serves as the FTS rowid, so the triggers delete by rowid.
+    private static void createNameIndex(Statement stmt) throws SQLException {
+        boolean current;
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'Students_fts_map'")) {
+            current = rs.next();
+        }
+        if (current) return;
+
+        // Indexes built by older versions were keyed on Students.rowid or student_id; replace them.
+        stmt.execute("DROP TRIGGER IF EXISTS students_fts_ai");
+        stmt.execute("DROP TRIGGER IF EXISTS students_fts_ad");
+        stmt.execute("DROP TRIGGER IF EXISTS students_fts_au");
+        stmt.execute("DROP TABLE IF EXISTS Students_fts");
+
+        stmt.execute("CREATE TABLE Students_fts_map (" +
+                "fts_rowid INTEGER PRIMARY KEY," +
+                "student_id VARCHAR(20) NOT NULL UNIQUE)");
+        stmt.execute("CREATE VIRTUAL TABLE Students_fts USING fts5(first_name, last_name, prefix='2 3')");
+        stmt.execute("CREATE TRIGGER students_fts_ai AFTER INSERT ON Students BEGIN " +
+                "INSERT INTO Students_fts_map(student_id) VALUES (new.student_id); " +
+                "INSERT INTO Students_fts(rowid, first_name, last_name) " +
+                "VALUES ((SELECT fts_rowid FROM Students_fts_map WHERE student_id = new.student_id), " +
+                "new.first_name, new.last_name); END");
+        stmt.execute("CREATE TRIGGER students_fts_ad AFTER DELETE ON Students BEGIN " +
+                "DELETE FROM Students_fts WHERE rowid = " +
+                "(SELECT fts_rowid FROM Students_fts_map WHERE student_id = old.student_id); " +
+                "DELETE FROM Students_fts_map WHERE student_id = old.student_id; END");
+        stmt.execute("CREATE TRIGGER students_fts_au AFTER UPDATE OF student_id, first_name, last_name ON Students BEGIN " +
+                "UPDATE Students_fts_map SET student_id = new.student_id WHERE student_id = old.student_id; " +
+                "DELETE FROM Students_fts WHERE rowid = " +
+                "(SELECT fts_rowid FROM Students_fts_map WHERE student_id = new.student_id); " +
+                "INSERT INTO Students_fts(rowid, first_name, last_name) " +
+                "VALUES ((SELECT fts_rowid FROM Students_fts_map WHERE student_id = new.student_id), " +
+                "new.first_name, new.last_name); END");
+        // Index any students that were added before the FTS table existed.
+        stmt.execute("INSERT INTO Students_fts_map(student_id) SELECT student_id FROM Students");
+        stmt.execute("INSERT INTO Students_fts(rowid, first_name, last_name) " +
+                "SELECT m.fts_rowid, s.first_name, s.last_name " +
+                "FROM Students_fts_map m JOIN Students s ON s.student_id = m.student_id");
+    }
+
+    // Per course and year level student counts, maintained by triggers on Students so
+    // every write path (menu, bulk import) keeps it current and report 1 never scans Students.
+    private static void createEnrollmentSummary(Statement stmt) throws SQLException {
+        boolean exists;
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'EnrollmentSummary'")) {
+            exists = rs.next();
+        }
+        if (exists) return;
+
+        stmt.execute("CREATE TABLE EnrollmentSummary (" +
+                "course VARCHAR(50) NOT NULL," +
+                "year_level INT NOT NULL," +
+                "student_count INT NOT NULL," +
+                "PRIMARY KEY (course, year_level))");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS students_summary_ai AFTER INSERT ON Students BEGIN " +
+                "INSERT INTO EnrollmentSummary VALUES (COALESCE(new.course, ''), COALESCE(new.year_level, 0), 1) " +
+                "ON CONFLICT (course, year_level) DO UPDATE SET student_count = student_count + 1; END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS students_summary_ad AFTER DELETE ON Students BEGIN " +
+                "UPDATE EnrollmentSummary SET student_count = student_count - 1 " +
+                "WHERE course = COALESCE(old.course, '') AND year_level = COALESCE(old.year_level, 0); " +
+                "DELETE FROM EnrollmentSummary WHERE student_count <= 0; END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS students_summary_au AFTER UPDATE OF course, year_level ON Students BEGIN " +
+                "UPDATE EnrollmentSummary SET student_count = student_count - 1 " +
+                "WHERE course = COALESCE(old.course, '') AND year_level = COALESCE(old.year_level, 0); " +
+                "DELETE FROM EnrollmentSummary WHERE student_count <= 0; " +
+                "INSERT INTO EnrollmentSummary VALUES (COALESCE(new.course, ''), COALESCE(new.year_level, 0), 1) " +
+                "ON CONFLICT (course, year_level) DO UPDATE SET student_count = student_count + 1; END");
+        // Seed from students that were added before the summary existed.
+        stmt.execute("INSERT INTO EnrollmentSummary " +
+                "SELECT COALESCE(course, ''), COALESCE(year_level, 0), COUNT(*) FROM Students " +
+                "GROUP BY COALESCE(course, ''), COALESCE(year_level, 0)");
     }
 
     private static void addStudent() throws SQLException {
@@ -74,62 +242,161 @@ public class StudentDatabase {
             return;
         }
 
-        String checkSql = "SELECT * FROM Students WHERE student_id = ?";
-        PreparedStatement checkStmt = conn.prepareStatement(checkSql);
-        checkStmt.setString(1, id);
-        ResultSet rs = checkStmt.executeQuery();
-        if (rs.next()) {
+        if (insertStudent(id, first, last, course, year))
+            System.out.println("Student successfully added!");
+        else
             System.out.println("Error: Student ID already exists!");
-            return;
+    }
+
+    private static boolean insertStudent(String id, String first, String last, String course, int year)
+            throws SQLException {
+        String checkSql = "SELECT 1 FROM Students WHERE student_id = ?";
+        PreparedStatement checkStmt = prepare(checkSql);
+        checkStmt.setString(1, id);
+        try (ResultSet rs = checkStmt.executeQuery()) {
+            if (rs.next()) return false;
         }
 
         String sql = "INSERT INTO Students VALUES (?, ?, ?, ?, ?)";
-        PreparedStatement pstmt = conn.prepareStatement(sql);
+        PreparedStatement pstmt = prepare(sql);
         pstmt.setString(1, id);
         pstmt.setString(2, first);
         pstmt.setString(3, last);
         pstmt.setString(4, course);
         pstmt.setInt(5, year);
         pstmt.executeUpdate();
-        System.out.println("Student successfully added!");
+        return true;
     }
 
+    // Keyset pagination: each page seeks past the last student_id shown, so the cost
+    // of a page does not grow with how far into the table the user has paged.
     private static void viewStudents() throws SQLException {
-        String sql = "SELECT * FROM Students";
-        ResultSet rs = conn.createStatement().executeQuery(sql);
+        System.out.print("Filter by Course (blank for all): ");
+        String course = sc.nextLine().trim();
+        System.out.print("Filter by Year Level (blank for all): ");
+        String yearInput = sc.nextLine().trim();
+        System.out.print("Page size (blank for " + DEFAULT_PAGE_SIZE + "): ");
+        String sizeInput = sc.nextLine().trim();
+
+        int year = 0, pageSize = DEFAULT_PAGE_SIZE;
+        try {
+            if (!yearInput.isEmpty()) year = Integer.parseInt(yearInput);
+            if (!sizeInput.isEmpty()) pageSize = Integer.parseInt(sizeInput);
+        } catch (NumberFormatException e) {
+            System.out.println("Year level and page size must be numbers.");
+            return;
+        }
+        if (pageSize < 1) {
+            System.out.println("Page size must be at least 1.");
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT student_id, first_name, last_name, course, year_level FROM Students WHERE student_id > ?");
+        if (!course.isEmpty()) sql.append(" AND course = ?");
+        if (year != 0) sql.append(" AND year_level = ?");
+        sql.append(" ORDER BY student_id LIMIT ?");
+
+        PreparedStatement pstmt = prepare(sql.toString());
+        pstmt.setFetchSize(LIST_FETCH_SIZE);
+        String lastId = "";
+        int page = 1;
+        while (true) {
+            int idx = 1;
+            pstmt.setString(idx++, lastId);
+            if (!course.isEmpty()) pstmt.setString(idx++, course);
+            if (year != 0) pstmt.setInt(idx++, year);
+            pstmt.setInt(idx, pageSize);
+
+            int rows = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                System.out.println("\nPage " + page);
+                System.out.println("StudentID    First Name      Last Name       Course      Year");
+                System.out.println("------------------------------------------------------------");
+                while (rs.next()) {
+                    lastId = rs.getString("student_id");
+                    System.out.printf("%-12s%-15s%-15s%-12s%-5d\n",
+                            lastId,
+                            rs.getString("first_name"),
+                            rs.getString("last_name"),
+                            rs.getString("course"),
+                            rs.getInt("year_level"));
+                    rows++;
+                }
+            }
 
-        System.out.println("\nStudentID    First Name      Last Name       Course      Year");
-        System.out.println("------------------------------------------------------------");
-        while (rs.next()) {
-            System.out.printf("%-12s%-15s%-15s%-12s%-5d\n",
-                    rs.getString("student_id"),
-                    rs.getString("first_name"),
-                    rs.getString("last_name"),
-                    rs.getString("course"),
-                    rs.getInt("year_level"));
+            if (rows == 0 && page == 1) System.out.println("No students found.");
+            if (rows < pageSize) break;
+            System.out.print("Press Enter for next page, or Q to stop: ");
+            if (sc.nextLine().trim().equalsIgnoreCase("q")) break;
+            page++;
         }
     }
 
     private static void searchStudent() throws SQLException {
-        System.out.print("Enter Student ID to search: ");
-        String id = sc.nextLine();
+        System.out.print("Enter Student ID or Name to search: ");
+        String input = sc.nextLine().trim();
 
         String sql = "SELECT * FROM Students WHERE student_id = ?";
-        PreparedStatement pstmt = conn.prepareStatement(sql);
-        pstmt.setString(1, id);
-        ResultSet rs = pstmt.executeQuery();
+        PreparedStatement pstmt = prepare(sql);
+        pstmt.setString(1, input);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next()) {
+                System.out.println("Student found:");
+                System.out.printf("%s - %s %s (%s, Year %d)\n",
+                        rs.getString("student_id"),
+                        rs.getString("first_name"),
+                        rs.getString("last_name"),
+                        rs.getString("course"),
+                        rs.getInt("year_level"));
+                return;
+            }
+        }
+        searchStudentByName(input);
+    }
+
+    private static void searchStudentByName(String input) throws SQLException {
+        String query = toPrefixQuery(input);
+        if (query.isEmpty()) {
+            System.out.println("No student found matching " + input);
+            return;
+        }
+
+        String sql = "SELECT s.student_id, s.first_name, s.last_name, s.course, s.year_level " +
+                "FROM Students_fts f JOIN Students_fts_map m ON m.fts_rowid = f.rowid " +
+                "JOIN Students s ON s.student_id = m.student_id " +
+                "WHERE Students_fts MATCH ? ORDER BY f.rank LIMIT ?";
+        PreparedStatement pstmt = prepare(sql);
+        pstmt.setString(1, query);
+        pstmt.setInt(2, NAME_SEARCH_LIMIT);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.isBeforeFirst()) {
+                System.out.println("No student found matching " + input);
+                return;
+            }
+            System.out.println("Students matching \"" + input + "\" (best match first):");
+            while (rs.next()) {
+                System.out.printf("%s - %s %s (%s, Year %d)\n",
+                        rs.getString("student_id"),
+                        rs.getString("first_name"),
+                        rs.getString("last_name"),
+                        rs.getString("course"),
+                        rs.getInt("year_level"));
+            }
+        }
+    }
 
-        if (rs.next()) {
-            System.out.println("Student found:");
-            System.out.printf("%s - %s %s (%s, Year %d)\n",
-                    rs.getString("student_id"),
-                    rs.getString("first_name"),
-                    rs.getString("last_name"),
-                    rs.getString("course"),
-                    rs.getInt("year_level"));
-        } else {
-            System.out.println("No student found with ID " + id);
+    // Turns "ana del" into "ana"* "del"* so every word is prefix-matched, and strips
+    // characters that would otherwise be parsed as FTS5 query syntax.
+    private static String toPrefixQuery(String input) {
+        StringBuilder query = new StringBuilder();
+        for (String word : input.split("\\s+")) {
+            String token = word.replaceAll("[^\\p{L}\\p{N}]", "");
+            if (token.isEmpty()) continue;
+            if (query.length() > 0) query.append(' ');
+            query.append('"').append(token).append("\"*");
         }
+        return query.toString();
     }
 
     private static void updateStudent() throws SQLException {
@@ -142,65 +409,310 @@ public class StudentDatabase {
         int year = sc.nextInt();
         sc.nextLine();
 
+        if (updateStudentRecord(id, course, year))
+            System.out.println("Record updated successfully!");
+        else
+            System.out.println("Student not found.");
+    }
+
+    private static boolean updateStudentRecord(String id, String course, int year) throws SQLException {
         String sql = "UPDATE Students SET course = ?, year_level = ? WHERE student_id = ?";
-        PreparedStatement pstmt = conn.prepareStatement(sql);
+        PreparedStatement pstmt = prepare(sql);
         pstmt.setString(1, course);
         pstmt.setInt(2, year);
         pstmt.setString(3, id);
-
-        int rows = pstmt.executeUpdate();
-        if (rows > 0)
-            System.out.println("Record updated successfully!");
-        else
-            System.out.println("Student not found.");
+        return pstmt.executeUpdate() > 0;
     }
 
     private static void deleteStudent() throws SQLException {
         System.out.print("Enter Student ID to delete: ");
         String id = sc.nextLine();
 
-        String sql = "DELETE FROM Students WHERE student_id = ?";
-        PreparedStatement pstmt = conn.prepareStatement(sql);
-        pstmt.setString(1, id);
-        int rows = pstmt.executeUpdate();
-        if (rows > 0)
+        if (deleteStudentRecord(id))
             System.out.println("Record deleted successfully!");
         else
             System.out.println("Student not found.");
     }
 
+    private static boolean deleteStudentRecord(String id) throws SQLException {
+        String sql = "DELETE FROM Students WHERE student_id = ?";
+        PreparedStatement pstmt = prepare(sql);
+        pstmt.setString(1, id);
+        return pstmt.executeUpdate() > 0;
+    }
+
     private static void showReports() throws SQLException {
         System.out.println("\nReports Menu:");
         System.out.println("1. Count students per course");
         System.out.println("2. List students per year level");
+        System.out.println("3. Statement cache statistics");
         System.out.print("Choice: ");
         int ch = sc.nextInt();
         sc.nextLine();
 
         switch (ch) {
             case 1 -> {
-                String sql = "SELECT course, COUNT(*) as count FROM Students GROUP BY course";
-                ResultSet rs = conn.createStatement().executeQuery(sql);
-                System.out.println("\nCourse         Count");
-                System.out.println("----------------------");
-                while (rs.next()) {
-                    System.out.printf("%-15s%-5d\n", rs.getString("course"), rs.getInt("count"));
+                String sql = "SELECT course, SUM(student_count) AS count FROM EnrollmentSummary GROUP BY course";
+                try (ResultSet rs = prepare(sql).executeQuery()) {
+                    System.out.println("\nCourse         Count");
+                    System.out.println("----------------------");
+                    while (rs.next()) {
+                        System.out.printf("%-15s%-5d\n", rs.getString("course"), rs.getInt("count"));
+                    }
                 }
             }
             case 2 -> {
-                String sql = "SELECT year_level, student_id, first_name, last_name, course FROM Students ORDER BY year_level";
-                ResultSet rs = conn.createStatement().executeQuery(sql);
-                System.out.println("\nYear    StudentID    Name                Course");
-                System.out.println("-----------------------------------------------");
-                while (rs.next()) {
-                    System.out.printf("%-8d%-12s%-20s%-12s\n",
-                            rs.getInt("year_level"),
-                            rs.getString("student_id"),
-                            rs.getString("first_name") + " " + rs.getString("last_name"),
-                            rs.getString("course"));
+                // Walks idx_students_year in order, so rows stream out without a sort step.
+                String sql = "SELECT year_level, student_id, first_name, last_name, course FROM Students " +
+                        "ORDER BY year_level, student_id";
+                PreparedStatement pstmt = prepare(sql);
+                pstmt.setFetchSize(REPORT_FETCH_SIZE);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    System.out.println("\nYear    StudentID    Name                Course");
+                    System.out.println("-----------------------------------------------");
+                    while (rs.next()) {
+                        System.out.printf("%-8d%-12s%-20s%-12s\n",
+                                rs.getInt("year_level"),
+                                rs.getString("student_id"),
+                                rs.getString("first_name") + " " + rs.getString("last_name"),
+                                rs.getString("course"));
+                    }
                 }
             }
+            case 3 -> {
+                long total = cacheHits + cacheMisses;
+                System.out.println("\nCached statements: " + stmtCache.size());
+                System.out.println("Hits:   " + cacheHits);
+                System.out.println("Misses: " + cacheMisses);
+                System.out.printf("Hit rate: %.1f%%\n", total == 0 ? 0.0 : 100.0 * cacheHits / total);
+            }
             default -> System.out.println("Invalid choice.");
         }
     }
+
+    // Streams a CSV of student_id,first_name,last_name,course,year_level and writes it
+    // in chunked transactions, so the whole import costs one commit per chunk instead of one per row.
+    private static void bulkImport() throws SQLException, IOException {
+        System.out.print("Enter CSV file path: ");
+        String path = sc.nextLine();
+        System.out.println("On duplicate Student ID: 1. Skip  2. Replace  3. Skip and report");
+        System.out.print("Choice: ");
+        int mode = sc.nextInt();
+        sc.nextLine();
+
+        String sql;
+        switch (mode) {
+            case 1, 3 -> sql = "INSERT OR IGNORE INTO Students VALUES (?, ?, ?, ?, ?)";
+            case 2 -> sql = "INSERT OR REPLACE INTO Students VALUES (?, ?, ?, ?, ?)";
+            default -> {
+                System.out.println("Invalid choice.");
+                return;
+            }
+        }
+
+        int lineNo = 0, inserted = 0, duplicates = 0, rejected = 0;
+        int[] batchLines = new int[IMPORT_CHUNK_SIZE];
+        String[] batchIds = new String[IMPORT_CHUNK_SIZE];
+        int batchSize = 0;
+        long start = System.nanoTime();
+
+        conn.setAutoCommit(false);
+        PreparedStatement pstmt = prepare(sql);
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+                String[] f = parseCsvLine(line);
+                if (lineNo == 1 && f[0].equalsIgnoreCase("student_id")) continue;
+
+                String error = validateImportRow(f);
+                if (error != null) {
+                    if (rejected++ < MAX_REJECTS_SHOWN)
+                        System.out.println("Rejected line " + lineNo + ": " + error);
+                    continue;
+                }
+
+                pstmt.setString(1, f[0]);
+                pstmt.setString(2, f[1]);
+                pstmt.setString(3, f[2]);
+                pstmt.setString(4, f[3]);
+                pstmt.setInt(5, Integer.parseInt(f[4]));
+                pstmt.addBatch();
+                batchLines[batchSize] = lineNo;
+                batchIds[batchSize] = f[0];
+                batchSize++;
+
+                if (batchSize == IMPORT_CHUNK_SIZE) {
+                    int dups = countDuplicates(pstmt.executeBatch(), batchLines, batchIds, mode == 3);
+                    conn.commit();
+                    duplicates += dups;
+                    inserted += batchSize - dups;
+                    batchSize = 0;
+                }
+            }
+
+            if (batchSize > 0) {
+                int dups = countDuplicates(pstmt.executeBatch(), batchLines, batchIds, mode == 3);
+                conn.commit();
+                duplicates += dups;
+                inserted += batchSize - dups;
+            }
+        } catch (SQLException | IOException e) {
+            pstmt.clearBatch();
+            conn.rollback();
+            System.out.println("Import aborted at line " + lineNo + "; uncommitted chunk rolled back.");
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int written = inserted + duplicates;
+        System.out.println("\nImport finished.");
+        System.out.printf("Written:    %d%s\n", inserted, mode == 2 ? " (inserted or replaced)" : "");
+        System.out.printf("Duplicates: %d\n", duplicates);
+        System.out.printf("Rejected:   %d%s\n", rejected,
+                rejected > MAX_REJECTS_SHOWN ? " (first " + MAX_REJECTS_SHOWN + " shown)" : "");
+        System.out.printf("Time:       %.2f s (%.0f rows/sec)\n", seconds,
+                seconds > 0 ? (written + rejected) / seconds : 0.0);
+    }
+
+    // Non-interactive mode: java StudentDatabase --batch <file|-> reads one operation per line,
+    //   ADD,<id>,<first>,<last>,<course>,<year>
+    //   UPDATE,<id>,<course>,<year>
+    //   DELETE,<id>
+    // Blank lines and lines starting with # are ignored. Writes are committed in chunks.
+    // Returns the number of failed operations; main exits with 1 if any failed and with 2
+    // if the batch was aborted, so scripts can tell both apart from a clean run.
+    private static int runBatch(String path) throws SQLException, IOException {
+        int lineNo = 0, ok = 0, failed = 0, pending = 0;
+        long start = System.nanoTime();
+
+        conn.setAutoCommit(false);
+        try (BufferedReader reader = path.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank() || line.startsWith("#")) continue;
+
+                String error = executeBatchLine(parseCsvLine(line));
+                if (error == null) {
+                    ok++;
+                } else {
+                    failed++;
+                    System.out.println("Line " + lineNo + ": " + error);
+                }
+
+                if (++pending == IMPORT_CHUNK_SIZE) {
+                    conn.commit();
+                    pending = 0;
+                }
+            }
+            conn.commit();
+        } catch (SQLException | IOException e) {
+            conn.rollback();
+            System.out.println("Batch aborted at line " + lineNo + "; uncommitted operations rolled back.");
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("\nBatch finished.");
+        System.out.printf("Succeeded: %d\n", ok);
+        System.out.printf("Failed:    %d\n", failed);
+        System.out.printf("Time:      %.2f s (%.0f ops/sec)\n", seconds,
+                seconds > 0 ? (ok + failed) / seconds : 0.0);
+        return failed;
+    }
+
+    // Returns null on success, otherwise the reason the operation was not applied.
+    private static String executeBatchLine(String[] f) throws SQLException {
+        String op = f[0].toUpperCase();
+        switch (op) {
+            case "ADD" -> {
+                if (f.length != 6) return "ADD expects id, first name, last name, course, year level";
+                String error = validateImportRow(new String[] { f[1], f[2], f[3], f[4], f[5] });
+                if (error != null) return error;
+                return insertStudent(f[1], f[2], f[3], f[4], Integer.parseInt(f[5]))
+                        ? null : "Student ID already exists: " + f[1];
+            }
+            case "UPDATE" -> {
+                if (f.length != 4) return "UPDATE expects id, course, year level";
+                int year;
+                try {
+                    year = Integer.parseInt(f[3]);
+                } catch (NumberFormatException e) {
+                    return "year level is not a number: " + f[3];
+                }
+                if (year < 1 || year > 5) return "Year level must be between 1 and 5!";
+                return updateStudentRecord(f[1], f[2], year) ? null : "Student not found: " + f[1];
+            }
+            case "DELETE" -> {
+                if (f.length != 2) return "DELETE expects id";
+                return deleteStudentRecord(f[1]) ? null : "Student not found: " + f[1];
+            }
+            default -> {
+                return "Unknown operation: " + f[0];
+            }
+        }
+    }
+
+    // With INSERT OR IGNORE a zero update count means the Student ID already existed.
+    private static int countDuplicates(int[] counts, int[] lines, String[] ids, boolean report) {
+        int dups = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                dups++;
+                if (report)
+                    System.out.println("Duplicate line " + lines[i] + ": " + ids[i]);
+            }
+        }
+        return dups;
+    }
+
+    private static String validateImportRow(String[] f) {
+        if (f.length != 5) return "expected 5 fields, found " + f.length;
+        if (f[0].isEmpty()) return "missing Student ID";
+        int year;
+        try {
+            year = Integer.parseInt(f[4]);
+        } catch (NumberFormatException e) {
+            return "year level is not a number: " + f[4];
+        }
+        if (year < 1 || year > 5) return "Year level must be between 1 and 5!";
+        return null;
+    }
+
+    // Minimal CSV split: handles quoted fields and doubled quotes inside them.
+    private static String[] parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(cur.toString().trim());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        fields.add(cur.toString().trim());
+        return fields.toArray(new String[0]);
+    }
 }
@@ -1,12 +1,74 @@
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Scanner;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class InventorySystem {
     private static final String DB_URL = "jdbc:sqlite:inventory.db";
     private static final Scanner sc = new Scanner(System.in);
+    private static final int POOL_SIZE = 4;
+    private static final long POOL_IDLE_TIMEOUT_MS = 60_000;
+    // Points at DB_URL, or at a scratch database under --stress-test; set once in main.
+    private static ConnectionPool pool;
+    private static final int SEARCH_LIMIT = 20;
+    private static final int SNAPSHOT_INTERVAL = 100;
+    private static final int DEFAULT_REORDER_LEVEL = 10;
+    private static final List<LowStockListener> lowStockListeners = new CopyOnWriteArrayList<>();
+    private static final int TOP_N = 10;
+    // Loaded on first use from the reports menu, then kept current by the write paths below.
+    private static volatile ProductColumns columns;
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--stress-test")) {
+            runReservationStressTest();
+            return;
+        }
+
+        pool = new ConnectionPool(DB_URL, POOL_SIZE, POOL_IDLE_TIMEOUT_MS);
         createTable();
+        addLowStockListener(new LowStockListener() {
+            @Override
+            public void onLowStock(String productId, int quantity, int reorderLevel) {
+                System.out.printf("ALERT: %s is low on stock (%d left, reorder level %d)%n",
+                        productId, quantity, reorderLevel);
+            }
+
+            @Override
+            public void onRestocked(String productId, int quantity, int reorderLevel) {
+                System.out.printf("NOTICE: %s is back above its reorder level (%d, level %d)%n",
+                        productId, quantity, reorderLevel);
+            }
+        });
+
         int choice;
         do {
             System.out.println("\n===== Inventory Management System =====");
@@ -16,7 +78,10 @@ public class InventorySystem {
             System.out.println("4. Update Product");
             System.out.println("5. Delete Product");
             System.out.println("6. Reports");
-            System.out.println("7. Exit");
+            System.out.println("7. Place Order");
+            System.out.println("8. Restock Product");
+            System.out.println("9. Stock History");
+            System.out.println("10. Exit");
             System.out.print("Enter choice: ");
             choice = sc.nextInt();
             sc.nextLine();
@@ -28,10 +93,14 @@ public class InventorySystem {
                 case 4 -> updateProduct();
                 case 5 -> deleteProduct();
                 case 6 -> showReports();
-                case 7 -> System.out.println("Exiting...");
+                case 7 -> placeOrderMenu();
+                case 8 -> restockMenu();
+                case 9 -> stockHistory();
+                case 10 -> System.out.println("Exiting...");
                 default -> System.out.println("Invalid choice!");
             }
-        } while (choice != 7);
+        } while (choice != 10);
+        pool.close();
     }
 
     private static void createTable() {
@@ -41,17 +110,260 @@ public class InventorySystem {
                 product_name VARCHAR(100),
                 category VARCHAR(50),
                 quantity INT CHECK(quantity >= 0),
-                unit_price DECIMAL(10,2) CHECK(unit_price > 0)
+                unit_price DECIMAL(10,2) CHECK(unit_price > 0),
+                reorder_level INT NOT NULL DEFAULT 10 CHECK(reorder_level >= 0)
             );
         """;
-        try (Connection conn = DriverManager.getConnection(DB_URL);
+        try (Connection conn = pool.getConnection();
             Statement stmt = conn.createStatement()) {
             stmt.execute(sql);
+            addReorderLevelColumn(stmt);
+            // Partial covering index: holds only products below their reorder level, so the
+            // low-stock report reads exactly that set without touching the table.
+            stmt.execute("""
+                CREATE INDEX IF NOT EXISTS idx_products_low_stock
+                ON Products(product_id, product_name, quantity, reorder_level)
+                WHERE quantity < reorder_level;
+            """);
+            inTransaction(stmt, InventorySystem::createValuationSummary);
+            inTransaction(stmt, InventorySystem::createNameTrigramIndex);
+            inTransaction(stmt, InventorySystem::createStockLedger);
+            // Lets the stock history seek straight to a product's date range; outside createStockLedger
+            // so databases whose ledger already exists get it too.
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_movements_product_time ON StockMovements(product_id, created_at)");
         } catch (SQLException e) {
             System.out.println("Error creating table: " + e.getMessage());
         }
     }
 
+    private interface SchemaStep {
+        void apply(Statement stmt) throws SQLException;
+    }
+
+    // Runs a multi-statement schema step as one transaction, so a failure part way leaves no
+    // half-built table or trigger set for the next start to mistake for a finished one.
+    private static void inTransaction(Statement stmt, SchemaStep step) throws SQLException {
+        Connection conn = stmt.getConnection();
+        conn.setAutoCommit(false);
+        try {
+            step.apply(stmt);
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // Databases created before per-product thresholds get the column with the old fixed limit.
+    private static void addReorderLevelColumn(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM pragma_table_info('Products') WHERE name = 'reorder_level'")) {
+            if (rs.next()) return;
+        }
+        stmt.execute("ALTER TABLE Products ADD COLUMN reorder_level INT NOT NULL DEFAULT 10 CHECK(reorder_level >= 0)");
+    }
+
+    // FTS5 trigram index over product_name, synced by triggers. Any substring of 3+ characters
+    // is answered from the index instead of a scan. Products.rowid cannot key it: Products has
+    // a VARCHAR key, so VACUUM is free to renumber those rowids. Products_trigram_map instead
+    // gives every product a stable INTEGER PRIMARY KEY that serves as the FTS rowid, so the
+    // triggers delete by rowid.
+    private static void createNameTrigramIndex(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'Products_trigram_map'")) {
+            if (rs.next()) return;
+        }
+
+        // Indexes built by older versions were keyed on Products.rowid or product_id; replace them.
+        stmt.execute("DROP TRIGGER IF EXISTS products_trigram_ai");
+        stmt.execute("DROP TRIGGER IF EXISTS products_trigram_ad");
+        stmt.execute("DROP TRIGGER IF EXISTS products_trigram_au");
+        stmt.execute("DROP TABLE IF EXISTS Products_trigram");
+
+        stmt.execute("""
+            CREATE TABLE Products_trigram_map (
+                fts_rowid INTEGER PRIMARY KEY,
+                product_id VARCHAR(20) NOT NULL UNIQUE
+            );
+        """);
+        stmt.execute("CREATE VIRTUAL TABLE Products_trigram USING fts5(product_name, tokenize='trigram')");
+        stmt.execute("""
+            CREATE TRIGGER products_trigram_ai AFTER INSERT ON Products BEGIN
+                INSERT INTO Products_trigram_map(product_id) VALUES (new.product_id);
+                INSERT INTO Products_trigram(rowid, product_name)
+                VALUES ((SELECT fts_rowid FROM Products_trigram_map WHERE product_id = new.product_id), new.product_name);
+            END;
+        """);
+        stmt.execute("""
+            CREATE TRIGGER products_trigram_ad AFTER DELETE ON Products BEGIN
+                DELETE FROM Products_trigram
+                WHERE rowid = (SELECT fts_rowid FROM Products_trigram_map WHERE product_id = old.product_id);
+                DELETE FROM Products_trigram_map WHERE product_id = old.product_id;
+            END;
+        """);
+        stmt.execute("""
+            CREATE TRIGGER products_trigram_au AFTER UPDATE OF product_id, product_name ON Products BEGIN
+                UPDATE Products_trigram_map SET product_id = new.product_id WHERE product_id = old.product_id;
+                DELETE FROM Products_trigram
+                WHERE rowid = (SELECT fts_rowid FROM Products_trigram_map WHERE product_id = new.product_id);
+                INSERT INTO Products_trigram(rowid, product_name)
+                VALUES ((SELECT fts_rowid FROM Products_trigram_map WHERE product_id = new.product_id), new.product_name);
+            END;
+        """);
+        stmt.execute("INSERT INTO Products_trigram_map(product_id) SELECT product_id FROM Products");
+        stmt.execute("""
+            INSERT INTO Products_trigram(rowid, product_name)
+            SELECT m.fts_rowid, p.product_name FROM Products_trigram_map m JOIN Products p ON p.product_id = m.product_id;
+        """);
+    }
+
+    // Append-only log of every stock change plus periodic per-product snapshots. A product's
+    // ledger quantity is its latest snapshot plus the movements after it, so reconstructing it
+    // reads at most SNAPSHOT_INTERVAL rows. Products.quantity stays as the materialized current
+    // value that the atomic reserve/order checks run against.
+    private static void createStockLedger(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'StockMovements'")) {
+            if (rs.next()) return;
+        }
+
+        stmt.execute("""
+            CREATE TABLE StockMovements (
+                movement_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                product_id VARCHAR(20) NOT NULL,
+                movement_type VARCHAR(10) NOT NULL CHECK(movement_type IN ('RECEIPT', 'SALE', 'ADJUSTMENT')),
+                quantity_delta INT NOT NULL,
+                created_at TEXT NOT NULL DEFAULT (strftime('%Y-%m-%d %H:%M:%f', 'now'))
+            );
+        """);
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_movements_product ON StockMovements(product_id, movement_id)");
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS StockSnapshots (
+                product_id VARCHAR(20) NOT NULL,
+                movement_id INTEGER NOT NULL,
+                quantity INT NOT NULL,
+                PRIMARY KEY (product_id, movement_id)
+            );
+        """);
+        // Opening balance for products that existed before the ledger.
+        stmt.execute("""
+            INSERT INTO StockMovements (product_id, movement_type, quantity_delta)
+            SELECT product_id, 'ADJUSTMENT', quantity FROM Products WHERE quantity <> 0;
+        """);
+    }
+
+    // Appends one movement on the caller's connection, so it commits or rolls back together
+    // with the Products change it describes, then snapshots the product if its tail is long.
+    private static void recordMovement(Connection conn, String productId, String type, int delta)
+            throws SQLException {
+        String sql = "INSERT INTO StockMovements (product_id, movement_type, quantity_delta) VALUES (?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, productId);
+            pstmt.setString(2, type);
+            pstmt.setInt(3, delta);
+            pstmt.executeUpdate();
+        }
+        snapshotIfDue(conn, productId);
+    }
+
+    private static void snapshotIfDue(Connection conn, String productId) throws SQLException {
+        LedgerState state = readLedger(conn, productId);
+        if (state.tailLength() < SNAPSHOT_INTERVAL) return;
+
+        String sql = "INSERT INTO StockSnapshots (product_id, movement_id, quantity) VALUES (?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, productId);
+            pstmt.setLong(2, state.lastMovementId());
+            pstmt.setInt(3, state.quantity());
+            pstmt.executeUpdate();
+        }
+    }
+
+    private record LedgerState(int quantity, int tailLength, long lastMovementId) {}
+
+    // Latest snapshot + replay of the movements recorded after it.
+    private static LedgerState readLedger(Connection conn, String productId) throws SQLException {
+        long snapshotId = 0;
+        int snapshotQty = 0;
+        String snapSql = """
+            SELECT movement_id, quantity FROM StockSnapshots
+            WHERE product_id = ? ORDER BY movement_id DESC LIMIT 1
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(snapSql)) {
+            pstmt.setString(1, productId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    snapshotId = rs.getLong("movement_id");
+                    snapshotQty = rs.getInt("quantity");
+                }
+            }
+        }
+
+        String tailSql = """
+            SELECT COUNT(*) AS n, COALESCE(SUM(quantity_delta), 0) AS delta, MAX(movement_id) AS last_id
+            FROM StockMovements WHERE product_id = ? AND movement_id > ?
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(tailSql)) {
+            pstmt.setString(1, productId);
+            pstmt.setLong(2, snapshotId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                int n = rs.getInt("n");
+                return new LedgerState(snapshotQty + rs.getInt("delta"), n,
+                        n == 0 ? snapshotId : rs.getLong("last_id"));
+            }
+        }
+    }
+
+    // Running stock value per category in integer cents, kept current by triggers on Products
+    // so the valuation reports read a handful of rows instead of summing the whole catalog.
+    // Each row contributes ROUND(quantity * unit_price * 100), and triggers subtract exactly
+    // what they once added, so the totals never drift.
+    private static void createValuationSummary(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'CategoryValuation'")) {
+            if (rs.next()) return;
+        }
+
+        stmt.execute("""
+            CREATE TABLE CategoryValuation (
+                category VARCHAR(50) PRIMARY KEY,
+                value_cents INTEGER NOT NULL
+            );
+        """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS products_value_ai AFTER INSERT ON Products BEGIN
+                INSERT INTO CategoryValuation
+                VALUES (COALESCE(new.category, ''), CAST(ROUND(new.quantity * new.unit_price * 100) AS INTEGER))
+                ON CONFLICT (category) DO UPDATE SET value_cents = value_cents + excluded.value_cents;
+            END;
+        """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS products_value_ad AFTER DELETE ON Products BEGIN
+                UPDATE CategoryValuation
+                SET value_cents = value_cents - CAST(ROUND(old.quantity * old.unit_price * 100) AS INTEGER)
+                WHERE category = COALESCE(old.category, '');
+            END;
+        """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS products_value_au
+            AFTER UPDATE OF quantity, unit_price, category ON Products BEGIN
+                UPDATE CategoryValuation
+                SET value_cents = value_cents - CAST(ROUND(old.quantity * old.unit_price * 100) AS INTEGER)
+                WHERE category = COALESCE(old.category, '');
+                INSERT INTO CategoryValuation
+                VALUES (COALESCE(new.category, ''), CAST(ROUND(new.quantity * new.unit_price * 100) AS INTEGER))
+                ON CONFLICT (category) DO UPDATE SET value_cents = value_cents + excluded.value_cents;
+            END;
+        """);
+        stmt.execute("""
+            INSERT INTO CategoryValuation
+            SELECT COALESCE(category, ''), SUM(CAST(ROUND(quantity * unit_price * 100) AS INTEGER))
+            FROM Products GROUP BY COALESCE(category, '');
+        """);
+    }
+
     private static void addProduct() {
         System.out.print("Enter Product ID: ");
         String id = sc.nextLine();
@@ -64,22 +376,40 @@ public class InventorySystem {
         System.out.print("Enter Unit Price: ");
         double price = sc.nextDouble();
         sc.nextLine();
+        System.out.print("Enter Reorder Level (blank for " + DEFAULT_REORDER_LEVEL + "): ");
+        String levelInput = sc.nextLine().trim();
+        int level;
+        try {
+            level = levelInput.isEmpty() ? DEFAULT_REORDER_LEVEL : Integer.parseInt(levelInput);
+        } catch (NumberFormatException e) {
+            System.out.println("Reorder level must be a number.");
+            return;
+        }
 
-        if (qty < 0 || price <= 0) {
-            System.out.println("Invalid quantity or price.");
+        if (qty < 0 || price <= 0 || level < 0) {
+            System.out.println("Invalid quantity, price or reorder level.");
             return;
         }
 
-        String sql = "INSERT INTO Products VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
+        String sql = """
+            INSERT INTO Products (product_id, product_name, category, quantity, unit_price, reorder_level)
+            VALUES (?, ?, ?, ?, ?, ?)
+        """;
+        try (Connection conn = pool.getConnection();
             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
             pstmt.setString(1, id);
             pstmt.setString(2, name);
             pstmt.setString(3, category);
             pstmt.setInt(4, qty);
             pstmt.setDouble(5, price);
+            pstmt.setInt(6, level);
             pstmt.executeUpdate();
+            if (qty > 0) recordMovement(conn, id, "RECEIPT", qty);
+            conn.commit();
+            refreshColumns(conn, List.of(id));
             System.out.println("Product successfully added!");
+            if (qty < level) fireThresholdEvents(List.of(new StockChange(id, false, true, qty, level)));
         } catch (SQLException e) {
             System.out.println("Database error: " + e.getMessage());
         }
@@ -87,7 +417,7 @@ public class InventorySystem {
 
     private static void viewProducts() {
         String sql = "SELECT * FROM Products";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
+        try (Connection conn = pool.getConnection();
             Statement stmt = conn.createStatement();
             ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -109,14 +439,34 @@ public class InventorySystem {
         }
     }
 
+    // An exact product_id hit is listed first, then name matches ranked by bm25 from the
+    // trigram index. Inputs shorter than a trigram fall back to a LIKE capped at SEARCH_LIMIT.
     private static void searchProduct() {
         System.out.print("Enter Product ID or Name: ");
         String input = sc.nextLine();
-        String sql = "SELECT * FROM Products WHERE product_id = ? OR product_name LIKE ?";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
+        boolean indexed = input.codePointCount(0, input.length()) >= 3;
+        String nameMatch = indexed
+                ? """
+                    SELECT p.*, 1 AS tier, t.rank AS score
+                    FROM Products_trigram t
+                    JOIN Products_trigram_map m ON m.fts_rowid = t.rowid
+                    JOIN Products p ON p.product_id = m.product_id
+                    WHERE Products_trigram MATCH ? AND p.product_id <> ?
+                  """
+                : """
+                    SELECT p.*, 1 AS tier, 0.0 AS score
+                    FROM Products p
+                    WHERE p.product_name LIKE ? AND p.product_id <> ?
+                  """;
+        String sql = "SELECT p.*, 0 AS tier, 0.0 AS score FROM Products p WHERE p.product_id = ? "
+                + "UNION ALL " + nameMatch + " ORDER BY tier, score LIMIT ?";
+        try (Connection conn = pool.getConnection();
             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, input);
-            pstmt.setString(2, "%" + input + "%");
+            // A quoted FTS5 string is a literal phrase, i.e. a plain substring for the trigram tokenizer.
+            pstmt.setString(2, indexed ? "\"" + input.replace("\"", "\"\"") + "\"" : "%" + input + "%");
+            pstmt.setString(3, input);
+            pstmt.setInt(4, SEARCH_LIMIT);
             ResultSet rs = pstmt.executeQuery();
 
             if (!rs.isBeforeFirst()) {
@@ -146,21 +496,41 @@ public class InventorySystem {
         System.out.print("Enter new Unit Price: ");
         double price = sc.nextDouble();
         sc.nextLine();
+        System.out.print("Enter new Reorder Level (blank to keep): ");
+        String levelInput = sc.nextLine().trim();
 
-        String sql = "UPDATE Products SET quantity = ?, unit_price = ? WHERE product_id = ?";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
+        String readSql = "SELECT quantity, reorder_level FROM Products WHERE product_id = ?";
+        String sql = "UPDATE Products SET quantity = ?, unit_price = ?, reorder_level = ? WHERE product_id = ?";
+        try (Connection conn = pool.getConnection();
+            PreparedStatement readStmt = conn.prepareStatement(readSql);
             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            // SQLite refuses to upgrade this read to a write if another writer committed in
+            // between, so the delta logged below always matches the row that gets updated.
+            int oldQty, oldLevel;
+            readStmt.setString(1, id);
+            try (ResultSet rs = readStmt.executeQuery()) {
+                if (!rs.next()) {
+                    System.out.println("Product not found!");
+                    return;
+                }
+                oldQty = rs.getInt("quantity");
+                oldLevel = rs.getInt("reorder_level");
+            }
+            int level = levelInput.isEmpty() ? oldLevel : Integer.parseInt(levelInput);
+
             pstmt.setInt(1, qty);
             pstmt.setDouble(2, price);
-            pstmt.setString(3, id);
-            int rows = pstmt.executeUpdate();
-
-            if (rows > 0)
-                System.out.println("Product updated successfully!");
-            else
-                System.out.println("Product not found!");
+            pstmt.setInt(3, level);
+            pstmt.setString(4, id);
+            pstmt.executeUpdate();
+            if (qty != oldQty) recordMovement(conn, id, "ADJUSTMENT", qty - oldQty);
+            conn.commit();
+            refreshColumns(conn, List.of(id));
 
-        } catch (SQLException e) {
+            System.out.println("Product updated successfully!");
+            fireThresholdEvents(List.of(new StockChange(id, oldQty < oldLevel, qty < level, qty, level)));
+        } catch (SQLException | NumberFormatException e) {
             System.out.println("Error: " + e.getMessage());
         }
     }
@@ -168,11 +538,23 @@ public class InventorySystem {
     private static void deleteProduct() {
         System.out.print("Enter Product ID to delete: ");
         String id = sc.nextLine();
+        // Write off the remaining stock so the product's ledger ends at zero.
+        String logSql = """
+            INSERT INTO StockMovements (product_id, movement_type, quantity_delta)
+            SELECT product_id, 'ADJUSTMENT', -quantity FROM Products
+            WHERE product_id = ? AND quantity <> 0
+        """;
         String sql = "DELETE FROM Products WHERE product_id = ?";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
+        try (Connection conn = pool.getConnection();
+            PreparedStatement logStmt = conn.prepareStatement(logSql);
             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            logStmt.setString(1, id);
+            logStmt.executeUpdate();
             pstmt.setString(1, id);
             int rows = pstmt.executeUpdate();
+            conn.commit();
+            refreshColumns(conn, List.of(id));
             if (rows > 0)
                 System.out.println("Product deleted successfully!");
             else
@@ -186,43 +568,807 @@ public class InventorySystem {
         System.out.println("\nReports Menu:");
         System.out.println("1. Low Stock Report");
         System.out.println("2. Total Inventory Value");
+        System.out.println("3. Inventory Value by Category");
+        System.out.println("4. Analytics Snapshot (in-memory)");
         System.out.print("Enter choice: ");
         int choice = sc.nextInt();
         sc.nextLine();
 
         switch (choice) {
             case 1 -> {
-                System.out.println("Low Stock Products (<10):");
-                String sql = "SELECT * FROM Products WHERE quantity < 10";
-                try (Connection conn = DriverManager.getConnection(DB_URL);
+                System.out.println("Low Stock Products (below reorder level):");
+                String sql = """
+                    SELECT product_id, product_name, quantity, reorder_level FROM Products
+                    WHERE quantity < reorder_level
+                """;
+                try (Connection conn = pool.getConnection();
                     Statement stmt = conn.createStatement();
                     ResultSet rs = stmt.executeQuery(sql)) {
 
-                    System.out.printf("%-10s %-20s %-10s%n", "ID", "Name", "Qty");
-                    System.out.println("------------------------------------");
+                    System.out.printf("%-10s %-20s %-10s %-10s%n", "ID", "Name", "Qty", "Reorder");
+                    System.out.println("-----------------------------------------------");
                     while (rs.next()) {
-                        System.out.printf("%-10s %-20s %-10d%n",
+                        System.out.printf("%-10s %-20s %-10d %-10d%n",
                                 rs.getString("product_id"),
                                 rs.getString("product_name"),
-                                rs.getInt("quantity"));
+                                rs.getInt("quantity"),
+                                rs.getInt("reorder_level"));
                     }
                 } catch (SQLException e) {
                     System.out.println("Error: " + e.getMessage());
                 }
             }
             case 2 -> {
-                String sql = "SELECT SUM(quantity * unit_price) AS total_value FROM Products";
-                try (Connection conn = DriverManager.getConnection(DB_URL);
+                try {
+                    System.out.printf("Total Inventory Value: %.2f%n", totalInventoryValueCents() / 100.0);
+                } catch (SQLException e) {
+                    System.out.println("Error: " + e.getMessage());
+                }
+            }
+            case 3 -> {
+                String sql = "SELECT category, value_cents FROM CategoryValuation ORDER BY category";
+                try (Connection conn = pool.getConnection();
                     Statement stmt = conn.createStatement();
                     ResultSet rs = stmt.executeQuery(sql)) {
 
-                    if (rs.next())
-                        System.out.printf("Total Inventory Value: %.2f%n", rs.getDouble("total_value"));
+                    System.out.printf("%-15s %-15s%n", "Category", "Value");
+                    System.out.println("------------------------------");
+                    while (rs.next()) {
+                        System.out.printf("%-15s %-15.2f%n",
+                                rs.getString("category"),
+                                rs.getLong("value_cents") / 100.0);
+                    }
                 } catch (SQLException e) {
                     System.out.println("Error: " + e.getMessage());
                 }
             }
+            case 4 -> showAnalytics();
             default -> System.out.println("Invalid choice!");
         }
     }
+
+    private static void stockHistory() {
+        System.out.print("Enter Product ID: ");
+        String id = sc.nextLine();
+        System.out.print("From date (YYYY-MM-DD, blank for start): ");
+        String from = sc.nextLine().trim();
+        System.out.print("To date (YYYY-MM-DD, blank for today): ");
+        String to = sc.nextLine().trim();
+
+        String sql = """
+            SELECT movement_id, movement_type, quantity_delta, created_at FROM StockMovements
+            WHERE product_id = ? AND created_at >= ? AND created_at < date(?, '+1 day')
+            ORDER BY movement_id
+        """;
+        try (Connection conn = pool.getConnection();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, id);
+            pstmt.setString(2, from.isEmpty() ? "0000-01-01" : from);
+            pstmt.setString(3, to.isEmpty() ? "now" : to);
+
+            System.out.printf("%-8s %-12s %-8s %-25s%n", "Seq", "Type", "Change", "Recorded");
+            System.out.println("------------------------------------------------------");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    System.out.printf("%-8d %-12s %+-8d %-25s%n",
+                            rs.getLong("movement_id"),
+                            rs.getString("movement_type"),
+                            rs.getInt("quantity_delta"),
+                            rs.getString("created_at"));
+                }
+            }
+
+            LedgerState ledger = readLedger(conn, id);
+            System.out.printf("Ledger quantity: %d (snapshot + %d replayed movements)%n",
+                    ledger.quantity(), ledger.tailLength());
+        } catch (SQLException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    static void addLowStockListener(LowStockListener listener) {
+        lowStockListeners.add(listener);
+    }
+
+    static void removeLowStockListener(LowStockListener listener) {
+        lowStockListeners.remove(listener);
+    }
+
+    private record StockChange(String productId, boolean wasLow, boolean isLow, int quantity, int reorderLevel) {}
+
+    // Called inside the write transaction after quantity changed by delta, so the row read
+    // here is the one about to be committed.
+    private static StockChange readStockChange(Connection conn, String productId, int delta) throws SQLException {
+        String sql = "SELECT quantity, reorder_level FROM Products WHERE product_id = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, productId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                int qty = rs.getInt("quantity");
+                int level = rs.getInt("reorder_level");
+                return new StockChange(productId, qty - delta < level, qty < level, qty, level);
+            }
+        }
+    }
+
+    // Only called after commit, and only crossings notify, so listeners never hear about
+    // rolled-back orders or get repeated alerts while a product stays low. The change is
+    // already committed, so a failing listener is logged and skipped rather than allowed to
+    // starve the others or surface as a failed write.
+    private static void fireThresholdEvents(List<StockChange> changes) {
+        for (StockChange c : changes) {
+            if (c.wasLow() == c.isLow()) continue;
+            for (LowStockListener listener : lowStockListeners) {
+                try {
+                    if (c.isLow())
+                        listener.onLowStock(c.productId(), c.quantity(), c.reorderLevel());
+                    else
+                        listener.onRestocked(c.productId(), c.quantity(), c.reorderLevel());
+                } catch (RuntimeException e) {
+                    System.out.println("Error in low-stock listener for " + c.productId() + ": " + e);
+                }
+            }
+        }
+    }
+
+    // Reads the maintained per-category totals; cost depends on the number of categories only.
+    static long totalInventoryValueCents() throws SQLException {
+        String sql = "SELECT COALESCE(SUM(value_cents), 0) AS total FROM CategoryValuation";
+        try (Connection conn = pool.getConnection();
+            Statement stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong("total") : 0;
+        }
+    }
+
+    // Called by every write path right after it commits. The snapshot re-reads the committed
+    // rows instead of applying the caller's own delta, so writers racing to this point cannot
+    // leave it out of step with the table. If the re-read fails the snapshot is dropped, not
+    // left stale, and the next report reloads it.
+    private static void refreshColumns(Connection conn, Collection<String> productIds) {
+        ProductColumns cols = columns;
+        if (cols == null) return;
+        try {
+            cols.refresh(conn, productIds);
+        } catch (SQLException e) {
+            columns = null;
+            System.out.println("Analytics snapshot dropped: " + e.getMessage());
+        }
+    }
+
+    private static void showAnalytics() {
+        // A local copy, since a failed refresh may drop the shared snapshot at any time.
+        ProductColumns cols = columns;
+        try {
+            if (cols == null) {
+                long start = System.nanoTime();
+                cols = ProductColumns.load(pool, loaded -> columns = loaded);
+                System.out.printf("Loaded %d products into the analytics snapshot in %.1f ms%n",
+                        cols.size(), (System.nanoTime() - start) / 1e6);
+            }
+        } catch (SQLException e) {
+            columns = null;
+            System.out.println("Error: " + e.getMessage());
+            return;
+        }
+
+        long start = System.nanoTime();
+        long total = cols.totalValueCents();
+        Map<String, Long> byCategory = cols.valueByCategoryCents();
+        List<String[]> top = cols.topByValue(TOP_N);
+        double ms = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("%nTotal Inventory Value: %.2f%n", total / 100.0);
+        System.out.printf("%n%-15s %-15s%n", "Category", "Value");
+        System.out.println("------------------------------");
+        byCategory.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> System.out.printf("%-15s %-15.2f%n", e.getKey(), e.getValue() / 100.0));
+        System.out.printf("%nTop %d Products by Value%n", TOP_N);
+        System.out.printf("%-10s %-15s %-15s%n", "ID", "Category", "Value");
+        System.out.println("----------------------------------------");
+        for (String[] row : top)
+            System.out.printf("%-10s %-15s %-15s%n", row[0], row[1], row[2]);
+        System.out.printf("%nAggregates computed in %.2f ms%n", ms);
+    }
+
+    private static void placeOrderMenu() {
+        Map<String, Integer> lines = new TreeMap<>();
+        while (true) {
+            System.out.print("Enter Product ID (blank to finish): ");
+            String id = sc.nextLine().trim();
+            if (id.isEmpty()) break;
+            System.out.print("Enter Quantity: ");
+            int qty = sc.nextInt();
+            sc.nextLine();
+            if (qty <= 0) {
+                System.out.println("Quantity must be positive.");
+                continue;
+            }
+            lines.merge(id, qty, Integer::sum);
+        }
+        if (lines.isEmpty()) {
+            System.out.println("Order is empty.");
+            return;
+        }
+
+        try {
+            String shortId = placeOrder(lines);
+            if (shortId == null)
+                System.out.println("Order placed successfully!");
+            else
+                System.out.println("Order rejected: not enough stock (or unknown product) for " + shortId + ".");
+        } catch (SQLException | IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    private static void restockMenu() {
+        System.out.print("Enter Product ID to restock: ");
+        String id = sc.nextLine();
+        System.out.print("Enter Quantity to add: ");
+        int qty = sc.nextInt();
+        sc.nextLine();
+        if (qty <= 0) {
+            System.out.println("Quantity must be positive.");
+            return;
+        }
+
+        try {
+            if (restock(id, qty))
+                System.out.println("Product restocked successfully!");
+            else
+                System.out.println("Product not found!");
+        } catch (SQLException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    // Takes qty units of one product. The WHERE clause makes the check and the decrement a
+    // single atomic statement, so concurrent callers can never drive quantity below zero.
+    static boolean reserveStock(String productId, int qty) throws SQLException {
+        requirePositive(productId, qty);
+        String sql = "UPDATE Products SET quantity = quantity - ? WHERE product_id = ? AND quantity >= ?";
+        try (Connection conn = pool.getConnection();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            pstmt.setInt(1, qty);
+            pstmt.setString(2, productId);
+            pstmt.setInt(3, qty);
+            if (pstmt.executeUpdate() == 0) return false;
+            recordMovement(conn, productId, "SALE", -qty);
+            StockChange change = readStockChange(conn, productId, -qty);
+            conn.commit();
+            refreshColumns(conn, List.of(productId));
+            fireThresholdEvents(List.of(change));
+            return true;
+        }
+    }
+
+    static boolean restock(String productId, int qty) throws SQLException {
+        requirePositive(productId, qty);
+        String sql = "UPDATE Products SET quantity = quantity + ? WHERE product_id = ?";
+        try (Connection conn = pool.getConnection();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            pstmt.setInt(1, qty);
+            pstmt.setString(2, productId);
+            if (pstmt.executeUpdate() == 0) return false;
+            recordMovement(conn, productId, "RECEIPT", qty);
+            StockChange change = readStockChange(conn, productId, qty);
+            conn.commit();
+            refreshColumns(conn, List.of(productId));
+            fireThresholdEvents(List.of(change));
+            return true;
+        }
+    }
+
+    // A zero or negative quantity would turn a sale into a receipt (or the reverse) and slip
+    // past the quantity >= ? guard, so the entry points reject it rather than trust the menus.
+    private static void requirePositive(String productId, int qty) {
+        if (qty <= 0) throw new IllegalArgumentException("Quantity must be positive for " + productId + ": " + qty);
+    }
+
+    // Reserves every line of an order in one transaction: either all quantities are taken or
+    // none are. Returns null on success, or the first product ID that could not be filled.
+    static String placeOrder(Map<String, Integer> lines) throws SQLException {
+        lines.forEach(InventorySystem::requirePositive);
+        String sql = "UPDATE Products SET quantity = quantity - ? WHERE product_id = ? AND quantity >= ?";
+        try (Connection conn = pool.getConnection();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            List<StockChange> changes = new ArrayList<>();
+            // Fixed product order keeps lock acquisition consistent across concurrent orders.
+            for (Map.Entry<String, Integer> line : new TreeMap<>(lines).entrySet()) {
+                pstmt.setInt(1, line.getValue());
+                pstmt.setString(2, line.getKey());
+                pstmt.setInt(3, line.getValue());
+                if (pstmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return line.getKey();
+                }
+                recordMovement(conn, line.getKey(), "SALE", -line.getValue());
+                changes.add(readStockChange(conn, line.getKey(), -line.getValue()));
+            }
+            conn.commit();
+            refreshColumns(conn, lines.keySet());
+            fireThresholdEvents(changes);
+            return null;
+        }
+    }
+
+    // java InventorySystem --stress-test
+    // Hammers two throwaway products with concurrent two-line orders and checks that nothing
+    // was oversold and that every order was applied to both lines or to neither. Runs against
+    // a scratch database that is deleted afterwards, never inventory.db, and with no low-stock
+    // listeners registered.
+    private static void runReservationStressTest() {
+        Path scratch;
+        try {
+            scratch = Files.createTempDirectory("inventory-stress");
+        } catch (IOException e) {
+            System.out.println("Stress test error: " + e.getMessage());
+            return;
+        }
+        pool = new ConnectionPool("jdbc:sqlite:" + scratch.resolve("inventory.db"), POOL_SIZE, POOL_IDLE_TIMEOUT_MS);
+        try {
+            createTable();
+            runReservations();
+        } finally {
+            pool.close();
+            deleteScratch(scratch);
+        }
+    }
+
+    private static void runReservations() {
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        int ordersPerThread = 200;
+        int stockA = threads * ordersPerThread / 2;
+        int stockB = stockA / 2;
+        String idA = "STRESS-A-" + System.nanoTime();
+        String idB = "STRESS-B-" + System.nanoTime();
+
+        try {
+            insertStressProduct(idA, stockA);
+            insertStressProduct(idB, stockB);
+
+            Map<String, Integer> order = new TreeMap<>(Map.of(idA, 1, idB, 1));
+            AtomicInteger placed = new AtomicInteger();
+            AtomicInteger errors = new AtomicInteger();
+            CountDownLatch startGate = new CountDownLatch(1);
+            ExecutorService workers = Executors.newFixedThreadPool(threads);
+            for (int t = 0; t < threads; t++) {
+                workers.submit(() -> {
+                    try {
+                        startGate.await();
+                        for (int i = 0; i < ordersPerThread; i++) {
+                            if (placeOrder(order) == null) placed.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                        System.out.println("Worker error: " + e.getMessage());
+                    }
+                });
+            }
+
+            long start = System.nanoTime();
+            startGate.countDown();
+            workers.shutdown();
+            workers.awaitTermination(10, TimeUnit.MINUTES);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            int finalA = readQuantity(idA);
+            int finalB = readQuantity(idB);
+            boolean passed = errors.get() == 0
+                    && placed.get() == stockB
+                    && finalB == 0
+                    && finalA == stockA - placed.get();
+
+            System.out.printf("Threads: %d, attempted orders: %d, placed: %d (%.0f orders/sec)%n",
+                    threads, threads * ordersPerThread, placed.get(),
+                    seconds > 0 ? threads * ordersPerThread / seconds : 0.0);
+            System.out.printf("%s: %d -> %d, %s: %d -> %d%n", idA, stockA, finalA, idB, stockB, finalB);
+            System.out.println(passed ? "PASSED: no oversell, all orders atomic." : "FAILED: stock is inconsistent!");
+        } catch (SQLException | InterruptedException e) {
+            System.out.println("Stress test error: " + e.getMessage());
+        }
+    }
+
+    private static void insertStressProduct(String id, int qty) throws SQLException {
+        String sql = """
+            INSERT INTO Products (product_id, product_name, category, quantity, unit_price)
+            VALUES (?, 'Stress test item', 'TEST', ?, 1.00)
+        """;
+        try (Connection conn = pool.getConnection();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, id);
+            pstmt.setInt(2, qty);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static int readQuantity(String id) throws SQLException {
+        String sql = "SELECT quantity FROM Products WHERE product_id = ?";
+        try (Connection conn = pool.getConnection();
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt("quantity") : -1;
+            }
+        }
+    }
+
+    // Removes the scratch database along with its WAL and shared-memory files.
+    private static void deleteScratch(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) Files.delete(file);
+            Files.delete(dir);
+        } catch (IOException e) {
+            System.out.println("Error removing stress test database " + dir + ": " + e.getMessage());
+        }
+    }
+}
+
+// Notified on the thread that made the change, right after it commits, whenever a product
+// crosses its reorder level in either direction.
+interface LowStockListener {
+    void onLowStock(String productId, int quantity, int reorderLevel);
+
+    default void onRestocked(String productId, int quantity, int reorderLevel) {}
+}
+
+// Column-oriented copy of the catalog for analytics: quantities and prices (in cents) live in
+// primitive arrays and categories are dictionary-encoded, so aggregates are tight parallel
+// loops over memory instead of row-by-row ResultSet reads. Deletes swap the last row into
+// the hole to keep the arrays dense. Writers keep it current by re-reading the rows they
+// committed (refresh), never by applying deltas, so it cannot drift from the table.
+class ProductColumns {
+    private static final String ROW_SQL = "SELECT product_id, category, quantity, unit_price FROM Products";
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> rowOf = new HashMap<>();
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private final List<String> categoryNames = new ArrayList<>();
+    private String[] ids = new String[1024];
+    private int[] quantities = new int[1024];
+    private long[] priceCents = new long[1024];
+    private int[] categories = new int[1024];
+    private int size = 0;
+
+    // The new snapshot is published before the scan, while the write lock is held. A writer
+    // that commits after publication finds it and waits in refresh until the scan is done. A
+    // writer that committed earlier is already visible to the scan. Either way no change is
+    // lost. The connection is taken before the lock so that waiting writers, who still hold
+    // their own connections, cannot starve the pool.
+    static ProductColumns load(ConnectionPool pool, Consumer<ProductColumns> publish) throws SQLException {
+        ProductColumns cols = new ProductColumns();
+        try (Connection conn = pool.getConnection();
+            Statement stmt = conn.createStatement()) {
+            cols.lock.writeLock().lock();
+            try {
+                publish.accept(cols);
+                stmt.setFetchSize(10_000);
+                try (ResultSet rs = stmt.executeQuery(ROW_SQL)) {
+                    while (rs.next()) {
+                        cols.upsert(rs.getString("product_id"), rs.getString("category"),
+                                rs.getInt("quantity"), rs.getDouble("unit_price"));
+                    }
+                }
+            } finally {
+                cols.lock.writeLock().unlock();
+            }
+        }
+        return cols;
+    }
+
+    // Replaces each row with what conn now sees in Products, or drops it if the product is
+    // gone. The read happens under the write lock, so concurrent refreshes apply in the order
+    // they read and a later state is never overwritten by an earlier one.
+    void refresh(Connection conn, Collection<String> productIds) throws SQLException {
+        lock.writeLock().lock();
+        try (PreparedStatement pstmt = conn.prepareStatement(ROW_SQL + " WHERE product_id = ?")) {
+            for (String id : productIds) {
+                pstmt.setString(1, id);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next())
+                        upsert(id, rs.getString("category"), rs.getInt("quantity"), rs.getDouble("unit_price"));
+                    else
+                        remove(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void upsert(String id, String category, int quantity, double unitPrice) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowOf.get(id);
+            if (row == null) {
+                if (size == ids.length) grow();
+                row = size++;
+                rowOf.put(id, row);
+                ids[row] = id;
+            }
+            quantities[row] = quantity;
+            priceCents[row] = Math.round(unitPrice * 100);
+            categories[row] = categoryCodes.computeIfAbsent(category == null ? "" : category, c -> {
+                categoryNames.add(c);
+                return categoryNames.size() - 1;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowOf.remove(id);
+            if (row == null) return;
+            int last = --size;
+            if (row != last) {
+                ids[row] = ids[last];
+                quantities[row] = quantities[last];
+                priceCents[row] = priceCents[last];
+                categories[row] = categories[last];
+                rowOf.put(ids[row], row);
+            }
+            ids[last] = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    long totalValueCents() {
+        lock.readLock().lock();
+        try {
+            int[] q = quantities;
+            long[] p = priceCents;
+            return IntStream.range(0, size).parallel().mapToLong(i -> q[i] * p[i]).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Each worker sums into its own array indexed by category code; partials are then added.
+    Map<String, Long> valueByCategoryCents() {
+        lock.readLock().lock();
+        try {
+            int[] q = quantities;
+            long[] p = priceCents;
+            int[] c = categories;
+            int buckets = categoryNames.size();
+            long[] sums = IntStream.range(0, size).parallel().collect(
+                    () -> new long[buckets],
+                    (acc, i) -> acc[c[i]] += q[i] * p[i],
+                    (a, b) -> Arrays.setAll(a, k -> a[k] + b[k]));
+
+            Map<String, Long> result = new HashMap<>();
+            for (int k = 0; k < buckets; k++) {
+                if (sums[k] != 0) result.put(categoryNames.get(k), sums[k]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Each worker keeps a bounded min-heap of its n best rows; the heaps are merged at the end.
+    // Returns {product_id, category, value} rows, highest value first.
+    List<String[]> topByValue(int n) {
+        lock.readLock().lock();
+        try {
+            int[] q = quantities;
+            long[] p = priceCents;
+            Comparator<Integer> byValue = Comparator.comparingLong(i -> q[i] * p[i]);
+            PriorityQueue<Integer> best = IntStream.range(0, size).parallel().collect(
+                    () -> new PriorityQueue<>(byValue),
+                    (heap, i) -> {
+                        heap.offer(i);
+                        if (heap.size() > n) heap.poll();
+                    },
+                    (a, b) -> {
+                        for (Integer i : b) {
+                            a.offer(i);
+                            if (a.size() > n) a.poll();
+                        }
+                    });
+
+            List<String[]> rows = new ArrayList<>();
+            while (!best.isEmpty()) {
+                int i = best.poll();
+                rows.add(0, new String[] {
+                        ids[i], categoryNames.get(categories[i]), String.format("%.2f", q[i] * p[i] / 100.0) });
+            }
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void grow() {
+        int cap = ids.length * 2;
+        ids = Arrays.copyOf(ids, cap);
+        quantities = Arrays.copyOf(quantities, cap);
+        priceCents = Arrays.copyOf(priceCents, cap);
+        categories = Arrays.copyOf(categories, cap);
+    }
+}
+
+// Small bounded pool of long-lived SQLite connections. Borrowed connections are handed out
+// behind a proxy whose close() returns them to the pool, so callers keep using try-with-resources.
+class ConnectionPool {
+    private static final long ACQUIRE_TIMEOUT_MS = 10_000;
+    private static final int VALIDATION_TIMEOUT_S = 1;
+
+    private final String url;
+    private final long idleTimeoutMs;
+    private final Semaphore permits;
+    private final Thread evictor;
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private boolean closed = false;
+
+    private record IdleConnection(Connection conn, long idleSince) {}
+
+    public ConnectionPool(String url, int maxSize, long idleTimeoutMs) {
+        this.url = url;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(idleTimeoutMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                evictIdle();
+            }
+        }, "connection-pool-evictor");
+        evictor.setDaemon(true);
+        evictor.start();
+    }
+
+    public Connection getConnection() throws SQLException {
+        try {
+            if (!permits.tryAcquire(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+                throw new SQLException("Timed out waiting for a database connection.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.");
+        }
+
+        try {
+            Connection physical = takeValidIdle();
+            if (physical == null) physical = open();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public synchronized void close() {
+        closed = true;
+        evictor.interrupt();
+        for (IdleConnection ic : idle) closeQuietly(ic.conn());
+        idle.clear();
+    }
+
+    private Connection takeValidIdle() {
+        while (true) {
+            IdleConnection ic;
+            synchronized (this) {
+                ic = idle.pollFirst();
+            }
+            if (ic == null) return null;
+            try {
+                if (ic.conn().isValid(VALIDATION_TIMEOUT_S)) return ic.conn();
+            } catch (SQLException e) {
+                // fall through and discard
+            }
+            closeQuietly(ic.conn());
+        }
+    }
+
+    private Connection open() throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            stmt.execute("PRAGMA busy_timeout = 5000");
+            stmt.execute("PRAGMA temp_store = MEMORY");
+            stmt.execute("PRAGMA cache_size = -8000");
+        } catch (SQLException e) {
+            closeQuietly(conn);
+            throw e;
+        }
+        return conn;
+    }
+
+    private void release(Connection physical) {
+        try {
+            if (physical.isClosed()) return;
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            synchronized (this) {
+                if (!closed) {
+                    idle.addFirst(new IdleConnection(physical, System.currentTimeMillis()));
+                    return;
+                }
+            }
+            closeQuietly(physical);
+        } catch (SQLException e) {
+            closeQuietly(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Most recently used connections sit at the head, so the stale ones collect at the tail.
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        synchronized (this) {
+            Iterator<IdleConnection> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                IdleConnection ic = it.next();
+                if (ic.idleSince() > cutoff) break;
+                it.remove();
+                closeQuietly(ic.conn());
+            }
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean returned = false;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (!returned) {
+                            returned = true;
+                            release(physical);
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        return returned || physical.isClosed();
+                    }
+                    default -> {
+                        if (returned) throw new SQLException("Connection has been returned to the pool.");
+                    }
+                }
+                try {
+                    return method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            // already unusable; nothing else to do
+        }
+    }
 }
@@ -1,12 +1,98 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class HospitalSystem {
     private static final String DB_URL = "jdbc:sqlite:hospital.db";
+    // Discharged patients older than the archive cutoff live in a separate file, attached as
+    // schema "archive" only by the code paths that need history.
+    private static final String ARCHIVE_FILE = "hospital_archive.db";
+    private static final String[] TIERS = { "main", "archive" };
     private static final Scanner sc = new Scanner(System.in);
 
+    private record AdmittedPatient(String patientId, String fullName, String diagnosis) {}
+
+    // Live set of patients with no discharge date, sorted by patient_id. Loaded once at
+    // startup and maintained by every write, so the ward report never touches the database.
+    private static final ConcurrentSkipListMap<String, AdmittedPatient> admitted = new ConcurrentSkipListMap<>();
+
+    private static final int SEARCH_LIMIT = 20;
+    private static final PatientNameIndex nameIndex = new PatientNameIndex();
+
+    private record PatientRecord(String patientId, String fullName, int age, String gender,
+                                 String diagnosis, String admissionDate, String dischargeDate) {
+        static PatientRecord fromRow(ResultSet rs) throws SQLException {
+            return new PatientRecord(
+                    rs.getString("patient_id"),
+                    rs.getString("full_name"),
+                    rs.getInt("age"),
+                    rs.getString("gender"),
+                    rs.getString("diagnosis"),
+                    rs.getString("admission_date"),
+                    rs.getString("discharge_date"));
+        }
+    }
+
+    // Recently viewed patients by ID; writers invalidate their entry after committing.
+    private static final int CACHE_CAPACITY = 1_000;
+    private static final LruCache<String, PatientRecord> patientCache = new LruCache<>(CACHE_CAPACITY);
+    // Search inputs already known not to be patient IDs, so repeated name searches skip the ID
+    // lookup. Kept apart from patientCache so name searches cannot evict real records; only
+    // inserts can make an entry stale, so addPatient and the bulk import invalidate it.
+    private static final int MISSING_ID_CAPACITY = 256;
+    private static final LruCache<String, Boolean> missingIds = new LruCache<>(MISSING_ID_CAPACITY);
+    private static final int MAX_PATIENT_ID_LENGTH = 20;
+
+    private static AuditLog auditLog;
+
+    // Bulk admission import: lines per parse task, and rows per writer transaction.
+    private static final int INGEST_CHUNK_LINES = 5_000;
+    private static final int INGEST_COMMIT_ROWS = 50_000;
+
+    private record IngestRow(int lineNo, String line, String patientId, String fullName, int age,
+                             String gender, String diagnosis, String admissionDate, String dischargeDate) {}
+    private record IngestReject(int lineNo, String line, String reason) {}
+    private record IngestChunk(List<IngestRow> rows, List<IngestReject> rejects) {}
+
     public static void main(String[] args) {
         createTable();
+        loadAdmittedPatients();
+        loadNameIndex();
+        auditLog = new AuditLog(DB_URL);
+        Runtime.getRuntime().addShutdownHook(new Thread(auditLog::close));
         int choice;
         do {
             System.out.println("\n===== Hospital Patient Records System =====");
@@ -16,7 +102,8 @@ public class HospitalSystem {
             System.out.println("4. Update Patient");
             System.out.println("5. Delete Patient");
             System.out.println("6. Reports");
-            System.out.println("7. Exit");
+            System.out.println("7. Bulk Admission Import");
+            System.out.println("8. Exit");
             System.out.print("Enter choice: ");
             choice = sc.nextInt();
             sc.nextLine();
@@ -28,10 +115,12 @@ public class HospitalSystem {
                 case 4 -> updatePatient();
                 case 5 -> deletePatient();
                 case 6 -> reportsMenu();
-                case 7 -> System.out.println("Exiting...");
+                case 7 -> importAdmissions();
+                case 8 -> System.out.println("Exiting...");
                 default -> System.out.println("Invalid choice!");
             }
-        } while (choice != 7);
+        } while (choice != 8);
+        auditLog.close();
     }
 
     private static void createTable() {
@@ -49,6 +138,43 @@ public class HospitalSystem {
         try (Connection conn = DriverManager.getConnection(DB_URL);
             Statement stmt = conn.createStatement()) {
             stmt.execute(sql);
+            // WAL lets the background audit writer commit while menu operations read.
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS PatientAudit (
+                    audit_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    patient_id VARCHAR(20) NOT NULL,
+                    action VARCHAR(10) NOT NULL,
+                    before_values TEXT,
+                    after_values TEXT,
+                    changed_at TEXT NOT NULL
+                );
+            """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_audit_patient ON PatientAudit(patient_id, audit_id)");
+            stmt.execute("ATTACH DATABASE '" + ARCHIVE_FILE + "' AS archive");
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS archive.Patients (
+                    patient_id VARCHAR(20) PRIMARY KEY,
+                    full_name VARCHAR(100),
+                    age INT,
+                    gender VARCHAR(10),
+                    diagnosis VARCHAR(100),
+                    admission_date DATE,
+                    discharge_date DATE,
+                    archived_at TEXT
+                );
+            """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS archive.idx_patients_admission ON Patients(admission_date, discharge_date)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS archive.idx_patients_discharge ON Patients(discharge_date, admission_date)");
+            // Covering indexes for the census: one seeks admissions by date, the other finds
+            // stays that were still open at a given date.
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_patients_admission ON Patients(admission_date, discharge_date)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_patients_discharge ON Patients(discharge_date, admission_date)");
+            // Partial covering index holding only current admissions, for the startup load.
+            stmt.execute("""
+                CREATE INDEX IF NOT EXISTS idx_patients_admitted
+                ON Patients(patient_id, full_name, diagnosis) WHERE discharge_date IS NULL
+            """);
         } catch (SQLException e) {
             System.out.println("Error creating table: " + e.getMessage());
         }
@@ -68,7 +194,7 @@ public class HospitalSystem {
         }
         System.out.print("Enter Gender (Male/Female): ");
         String gender = sc.nextLine();
-        if (!gender.equalsIgnoreCase("Male") && !gender.equalsIgnoreCase("Female")) {
+        if (!isValidGender(gender)) {
             System.out.println("Error: Invalid gender.");
             return;
         }
@@ -91,12 +217,219 @@ public class HospitalSystem {
             pstmt.setString(6, admit);
             pstmt.setString(7, discharge);
             pstmt.executeUpdate();
+            if (discharge == null) admitted.put(id, new AdmittedPatient(id, name, diagnosis));
+            nameIndex.put(id, name);
+            patientCache.invalidate(id);
+            missingIds.invalidate(id);
             System.out.println("Patient record successfully added!");
         } catch (SQLException e) {
             System.out.println("Database error: " + e.getMessage());
         }
     }
 
+    private static boolean isValidGender(String gender) {
+        return gender.equalsIgnoreCase("Male") || gender.equalsIgnoreCase("Female");
+    }
+
+    // Streams an admissions CSV (patient_id,full_name,age,gender,diagnosis,admission_date,
+    // discharge_date) into the database. A reader thread cuts the file into chunks that a pool
+    // parses and validates in parallel; this thread is the only writer and takes the parsed
+    // chunks back in file order, committing every INGEST_COMMIT_ROWS rows. Rejected lines go to
+    // <file>.rejects with their line number and reason.
+    private static void importAdmissions() {
+        System.out.print("Enter CSV file path: ");
+        String path = sc.nextLine();
+        String deadLetterPath = path + ".rejects";
+
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService parsers = Executors.newFixedThreadPool(workers);
+        // Bounded so a fast reader cannot run ahead of the writer by more than a few chunks.
+        BlockingQueue<Future<IngestChunk>> pending = new ArrayBlockingQueue<>(workers * 2);
+        Future<IngestChunk> endOfFile = CompletableFuture.completedFuture(null);
+        AtomicReference<IOException> readError = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new FileReader(path))) {
+                List<String> lines = new ArrayList<>(INGEST_CHUNK_LINES);
+                int firstLine = 1;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    lines.add(line);
+                    if (lines.size() == INGEST_CHUNK_LINES) {
+                        List<String> chunk = lines;
+                        int start = firstLine;
+                        pending.put(parsers.submit(() -> parseAdmissions(start, chunk)));
+                        firstLine += chunk.size();
+                        lines = new ArrayList<>(INGEST_CHUNK_LINES);
+                    }
+                }
+                if (!lines.isEmpty()) {
+                    List<String> chunk = lines;
+                    int start = firstLine;
+                    pending.put(parsers.submit(() -> parseAdmissions(start, chunk)));
+                }
+            } catch (IOException e) {
+                readError.set(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                pending.put(endOfFile);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "admission-reader");
+
+        int inserted = 0, rejected = 0;
+        List<IngestRow> uncommitted = new ArrayList<>();
+        long start = System.nanoTime();
+        String sql = "INSERT OR IGNORE INTO Patients VALUES (?, ?, ?, ?, ?, ?, ?)";
+        reader.start();
+        try (Connection conn = DriverManager.getConnection(DB_URL);
+            PreparedStatement pstmt = conn.prepareStatement(sql);
+            PrintWriter deadLetter = new PrintWriter(new BufferedWriter(new FileWriter(deadLetterPath)))) {
+            conn.setAutoCommit(false);
+            IngestChunk chunk;
+            while ((chunk = pending.take().get()) != null) {
+                for (IngestReject r : chunk.rejects()) {
+                    deadLetter.println(r.lineNo() + "\t" + r.reason() + "\t" + r.line());
+                    rejected++;
+                }
+                if (chunk.rows().isEmpty()) continue;
+
+                for (IngestRow r : chunk.rows()) {
+                    pstmt.setString(1, r.patientId());
+                    pstmt.setString(2, r.fullName());
+                    pstmt.setInt(3, r.age());
+                    pstmt.setString(4, r.gender());
+                    pstmt.setString(5, r.diagnosis());
+                    pstmt.setString(6, r.admissionDate());
+                    pstmt.setString(7, r.dischargeDate());
+                    pstmt.addBatch();
+                }
+                int[] counts = pstmt.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    IngestRow r = chunk.rows().get(i);
+                    if (counts[i] == 0) {
+                        deadLetter.println(r.lineNo() + "\tDuplicate patient ID\t" + r.line());
+                        rejected++;
+                    } else {
+                        uncommitted.add(r);
+                    }
+                }
+                if (uncommitted.size() >= INGEST_COMMIT_ROWS) {
+                    conn.commit();
+                    inserted += publishAdmissions(uncommitted);
+                }
+            }
+            conn.commit();
+            inserted += publishAdmissions(uncommitted);
+            if (readError.get() != null) {
+                System.out.println("Error reading file: " + readError.get().getMessage());
+            }
+        } catch (SQLException | IOException | ExecutionException e) {
+            // Closing the connection rolls back whatever was not yet committed.
+            System.out.println("Import aborted: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            reader.interrupt();
+            parsers.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int processed = inserted + rejected;
+        System.out.printf("Imported %d rows, rejected %d in %.2f s (%.0f rows/sec).%n",
+                inserted, rejected, seconds, seconds > 0 ? processed / seconds : 0.0);
+        if (rejected > 0) System.out.println("Rejected rows written to " + deadLetterPath);
+    }
+
+    private static IngestChunk parseAdmissions(int firstLine, List<String> lines) {
+        List<IngestRow> rows = new ArrayList<>(lines.size());
+        List<IngestReject> rejects = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            int lineNo = firstLine + i;
+            String line = lines.get(i);
+            if (line.isBlank()) continue;
+            String[] f = parseCsvLine(line);
+            if (lineNo == 1 && f[0].equalsIgnoreCase("patient_id")) continue;
+
+            String error = validateAdmission(f);
+            if (error != null) {
+                rejects.add(new IngestReject(lineNo, line, error));
+                continue;
+            }
+            String discharge = f.length == 7 && !f[6].isEmpty() ? f[6] : null;
+            rows.add(new IngestRow(lineNo, line, f[0], f[1], Integer.parseInt(f[2]), f[3], f[4], f[5], discharge));
+        }
+        return new IngestChunk(rows, rejects);
+    }
+
+    // Same rules as addPatient, plus the structural checks an interactive prompt gets for free.
+    private static String validateAdmission(String[] f) {
+        if (f.length < 6 || f.length > 7) return "Expected 6 or 7 fields, found " + f.length;
+        if (f[0].isEmpty()) return "Missing patient ID";
+        int age;
+        try {
+            age = Integer.parseInt(f[2]);
+        } catch (NumberFormatException e) {
+            return "Invalid age: " + f[2];
+        }
+        if (age <= 0) return "Age must be positive";
+        if (!isValidGender(f[3])) return "Invalid gender: " + f[3];
+        try {
+            LocalDate.parse(f[5]);
+            if (f.length == 7 && !f[6].isEmpty()) LocalDate.parse(f[6]);
+        } catch (DateTimeParseException e) {
+            return "Invalid date: " + e.getParsedString();
+        }
+        return null;
+    }
+
+    private static String[] parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(cur.toString().trim());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        fields.add(cur.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    // Makes committed import rows visible to the in-memory views, then clears the list.
+    private static int publishAdmissions(List<IngestRow> rows) {
+        for (IngestRow r : rows) {
+            if (r.dischargeDate() == null) {
+                admitted.put(r.patientId(), new AdmittedPatient(r.patientId(), r.fullName(), r.diagnosis()));
+            }
+            nameIndex.put(r.patientId(), r.fullName());
+            patientCache.invalidate(r.patientId());
+            missingIds.invalidate(r.patientId());
+        }
+        int n = rows.size();
+        rows.clear();
+        return n;
+    }
+
     private static void viewPatients() {
         String sql = "SELECT * FROM Patients";
         try (Connection conn = DriverManager.getConnection(DB_URL);
@@ -123,42 +456,118 @@ public class HospitalSystem {
         }
     }
 
+    // An exact patient ID is shown first, followed by name candidates from the phonetic/fuzzy
+    // index in rank order; each is then fetched by primary key.
     private static void searchPatient() {
         System.out.print("Enter Patient ID or Name: ");
-        String input = sc.nextLine();
-        String sql = "SELECT * FROM Patients WHERE patient_id = ? OR full_name LIKE ?";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
+        String input = sc.nextLine().trim();
+
+        List<String> ids = new ArrayList<>();
+        if (!input.isEmpty() && input.length() <= MAX_PATIENT_ID_LENGTH && missingIds.get(input) == null) {
+            ids.add(input);
+        }
+        for (String id : nameIndex.search(input, SEARCH_LIMIT)) {
+            if (!id.equals(input)) ids.add(id);
+        }
+
+        // Serve what we can from the cache; only the misses cost a connection and a query.
+        Map<String, PatientRecord> found = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String id : ids) {
+            PatientRecord cached = patientCache.get(id);
+            if (cached != null) found.put(id, cached);
+            else misses.add(id);
+        }
+
+        String sql = "SELECT * FROM Patients WHERE patient_id = ?";
+        try {
+            if (!misses.isEmpty()) {
+                try (Connection conn = DriverManager.getConnection(DB_URL);
+                    PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (String id : misses) {
+                        pstmt.setString(1, id);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            if (rs.next()) {
+                                PatientRecord p = PatientRecord.fromRow(rs);
+                                patientCache.put(id, p);
+                                found.put(id, p);
+                            } else if (id.equals(input)) {
+                                missingIds.put(id, Boolean.TRUE);
+                            }
+                        }
+                    }
+                }
+            }
+
+            for (String id : ids) {
+                if (found.containsKey(id)) printPatient(found.get(id));
+            }
+            if (found.isEmpty()) searchArchive(input);
+        } catch (SQLException e) {
+            System.out.println("Error searching patient: " + e.getMessage());
+        }
+    }
+
+    // Cold path, only reached when the hot table has no match.
+    private static void searchArchive(String input) throws SQLException {
+        String sql = "SELECT * FROM archive.Patients WHERE patient_id = ? OR full_name LIKE ? LIMIT ?";
+        try (Connection conn = connectWithArchive();
             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, input);
             pstmt.setString(2, "%" + input + "%");
-            ResultSet rs = pstmt.executeQuery();
-
-            if (!rs.isBeforeFirst()) {
-                System.out.println("No patient found!");
-                return;
+            pstmt.setInt(3, SEARCH_LIMIT);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.isBeforeFirst()) {
+                    System.out.println("No patient found!");
+                    return;
+                }
+                System.out.println("Found in archived records:");
+                while (rs.next()) printPatient(PatientRecord.fromRow(rs));
             }
+        }
+    }
 
-            while (rs.next()) {
-                System.out.printf("""
-                    Patient ID: %s
-                    Name: %s
-                    Age: %d
-                    Gender: %s
-                    Diagnosis: %s
-                    Admission Date: %s
-                    Discharge Date: %s
-                    ------------------------------------------
-                    """,
-                        rs.getString("patient_id"),
-                        rs.getString("full_name"),
-                        rs.getInt("age"),
-                        rs.getString("gender"),
-                        rs.getString("diagnosis"),
-                        rs.getString("admission_date"),
-                        rs.getString("discharge_date") == null ? "Still Admitted" : rs.getString("discharge_date"));
+    private static Connection connectWithArchive() throws SQLException {
+        Connection conn = DriverManager.getConnection(DB_URL);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ATTACH DATABASE '" + ARCHIVE_FILE + "' AS archive");
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return conn;
+    }
+
+    private static void printPatient(PatientRecord p) {
+        System.out.printf("""
+            Patient ID: %s
+            Name: %s
+            Age: %d
+            Gender: %s
+            Diagnosis: %s
+            Admission Date: %s
+            Discharge Date: %s
+            ------------------------------------------
+            """,
+                p.patientId(),
+                p.fullName(),
+                p.age(),
+                p.gender(),
+                p.diagnosis(),
+                p.admissionDate(),
+                p.dischargeDate() == null ? "Still Admitted" : p.dischargeDate());
+    }
+
+    private static void loadNameIndex() {
+        String sql = "SELECT patient_id, full_name FROM Patients";
+        try (Connection conn = DriverManager.getConnection(DB_URL);
+            Statement stmt = conn.createStatement()) {
+            stmt.setFetchSize(10_000);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) nameIndex.put(rs.getString("patient_id"), rs.getString("full_name"));
             }
         } catch (SQLException e) {
-            System.out.println("Error searching patient: " + e.getMessage());
+            System.out.println("Error loading name index: " + e.getMessage());
         }
     }
 
@@ -171,17 +580,41 @@ public class HospitalSystem {
         String discharge = sc.nextLine();
         if (discharge.isEmpty()) discharge = null;
 
+        // The old values are read in the same transaction as the update so the audit entry
+        // records exactly what was overwritten.
+        String readSql = "SELECT full_name, diagnosis, discharge_date FROM Patients WHERE patient_id = ?";
         String sql = "UPDATE Patients SET diagnosis = ?, discharge_date = ? WHERE patient_id = ?";
         try (Connection conn = DriverManager.getConnection(DB_URL);
+            PreparedStatement readStmt = conn.prepareStatement(readSql);
             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            String name, oldDiagnosis, oldDischarge;
+            readStmt.setString(1, id);
+            try (ResultSet rs = readStmt.executeQuery()) {
+                if (!rs.next()) {
+                    System.out.println("Patient not found.");
+                    return;
+                }
+                name = rs.getString("full_name");
+                oldDiagnosis = rs.getString("diagnosis");
+                oldDischarge = rs.getString("discharge_date");
+            }
+
             pstmt.setString(1, diagnosis);
             pstmt.setString(2, discharge);
             pstmt.setString(3, id);
-            int rows = pstmt.executeUpdate();
-            if (rows > 0)
-                System.out.println("Patient record updated successfully!");
+            pstmt.executeUpdate();
+            conn.commit();
+
+            patientCache.invalidate(id);
+            auditLog.record(id, "UPDATE",
+                    "diagnosis=" + oldDiagnosis + ", discharge_date=" + oldDischarge,
+                    "diagnosis=" + diagnosis + ", discharge_date=" + discharge);
+            if (discharge != null)
+                admitted.remove(id);
             else
-                System.out.println("Patient not found.");
+                admitted.put(id, new AdmittedPatient(id, name, diagnosis));
+            System.out.println("Patient record updated successfully!");
         } catch (SQLException e) {
             System.out.println("Error updating record: " + e.getMessage());
         }
@@ -190,15 +623,37 @@ public class HospitalSystem {
     private static void deletePatient() {
         System.out.print("Enter Patient ID to delete: ");
         String id = sc.nextLine();
+        String readSql = "SELECT * FROM Patients WHERE patient_id = ?";
         String sql = "DELETE FROM Patients WHERE patient_id = ?";
         try (Connection conn = DriverManager.getConnection(DB_URL);
+            PreparedStatement readStmt = conn.prepareStatement(readSql);
             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            String before;
+            readStmt.setString(1, id);
+            try (ResultSet rs = readStmt.executeQuery()) {
+                if (!rs.next()) {
+                    System.out.println("Patient not found!");
+                    return;
+                }
+                before = String.format("full_name=%s, age=%d, gender=%s, diagnosis=%s, admission_date=%s, discharge_date=%s",
+                        rs.getString("full_name"),
+                        rs.getInt("age"),
+                        rs.getString("gender"),
+                        rs.getString("diagnosis"),
+                        rs.getString("admission_date"),
+                        rs.getString("discharge_date"));
+            }
+
             pstmt.setString(1, id);
-            int rows = pstmt.executeUpdate();
-            if (rows > 0)
-                System.out.println("Patient record deleted successfully!");
-            else
-                System.out.println("Patient not found!");
+            pstmt.executeUpdate();
+            conn.commit();
+
+            patientCache.invalidate(id);
+            auditLog.record(id, "DELETE", before, null);
+            admitted.remove(id);
+            nameIndex.remove(id);
+            System.out.println("Patient record deleted successfully!");
         } catch (SQLException e) {
             System.out.println("Error deleting record: " + e.getMessage());
         }
@@ -208,6 +663,10 @@ public class HospitalSystem {
         System.out.println("\nReports Menu:");
         System.out.println("1. Currently Admitted Patients");
         System.out.println("2. Count Patients per Diagnosis");
+        System.out.println("3. Census over a Date Range");
+        System.out.println("4. Change History for a Patient");
+        System.out.println("5. Archive Discharged Patients");
+        System.out.println("6. Patient Cache Statistics");
         System.out.print("Enter choice: ");
         int choice = sc.nextInt();
         sc.nextLine();
@@ -215,33 +674,147 @@ public class HospitalSystem {
         switch (choice) {
             case 1 -> showAdmittedPatients();
             case 2 -> countPatientsByDiagnosis();
+            case 3 -> showCensus();
+            case 4 -> showAuditHistory();
+            case 5 -> archiveDischarged();
+            case 6 -> System.out.println(patientCache.stats());
             default -> System.out.println("Invalid choice!");
         }
     }
 
     private static void showAdmittedPatients() {
+        System.out.printf("%-10s %-20s %-20s%n", "PatientID", "Name", "Diagnosis");
+        System.out.println("----------------------------------------------------------");
+        for (AdmittedPatient p : admitted.values()) {
+            System.out.printf("%-10s %-20s %-20s%n", p.patientId(), p.fullName(), p.diagnosis());
+        }
+        System.out.println("Currently admitted: " + admitted.size());
+    }
+
+    private static void loadAdmittedPatients() {
         String sql = "SELECT patient_id, full_name, diagnosis FROM Patients WHERE discharge_date IS NULL";
         try (Connection conn = DriverManager.getConnection(DB_URL);
             Statement stmt = conn.createStatement();
             ResultSet rs = stmt.executeQuery(sql)) {
-
-            System.out.printf("%-10s %-20s %-20s%n", "PatientID", "Name", "Diagnosis");
-            System.out.println("----------------------------------------------------------");
             while (rs.next()) {
-                System.out.printf("%-10s %-20s %-20s%n",
-                        rs.getString("patient_id"),
-                        rs.getString("full_name"),
-                        rs.getString("diagnosis"));
+                String id = rs.getString("patient_id");
+                admitted.put(id, new AdmittedPatient(id, rs.getString("full_name"), rs.getString("diagnosis")));
             }
+        } catch (SQLException e) {
+            System.out.println("Error loading admitted patients: " + e.getMessage());
+        }
+    }
 
+    private static void showAuditHistory() {
+        System.out.print("Enter Patient ID: ");
+        String id = sc.nextLine();
+        auditLog.flush();
+
+        String sql = """
+            SELECT action, before_values, after_values, changed_at FROM PatientAudit
+            WHERE patient_id = ? ORDER BY audit_id
+        """;
+        try (Connection conn = DriverManager.getConnection(DB_URL);
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.isBeforeFirst()) {
+                    System.out.println("No changes recorded for " + id + ".");
+                    return;
+                }
+                while (rs.next()) {
+                    System.out.printf("""
+                        %s  %s
+                          Before: %s
+                          After:  %s
+                        """,
+                            rs.getString("changed_at"),
+                            rs.getString("action"),
+                            rs.getString("before_values"),
+                            rs.getString("after_values") == null ? "(deleted)" : rs.getString("after_values"));
+                }
+            }
         } catch (SQLException e) {
             System.out.println("Error generating report: " + e.getMessage());
         }
     }
 
+    // Moves patients discharged more than N days ago from the hot table to the archive file.
+    // The two files use different journal modes, so one transaction cannot commit both
+    // atomically. The copy therefore commits first, and only then is a second transaction
+    // allowed to delete from main. A crash in between leaves the record in both tiers. The
+    // rerun converges because the copy is INSERT OR REPLACE. A row is only deleted if it still
+    // matches its archived copy, so an edit made between the two commits stays in main.
+    private static void archiveDischarged() {
+        System.out.print("Archive patients discharged more than how many days ago? ");
+        int days = sc.nextInt();
+        sc.nextLine();
+        if (days < 0) {
+            System.out.println("Error: Days must not be negative.");
+            return;
+        }
+
+        String cutoffSql = "SELECT date('now', ?) AS cutoff";
+        String archivedMatch = """
+            discharge_date < ? AND EXISTS (
+                SELECT 1 FROM archive.Patients a
+                WHERE a.patient_id = p.patient_id
+                  AND a.full_name IS p.full_name AND a.age IS p.age AND a.gender IS p.gender
+                  AND a.diagnosis IS p.diagnosis AND a.admission_date IS p.admission_date
+                  AND a.discharge_date IS p.discharge_date
+            )
+        """;
+        String idsSql = "SELECT patient_id FROM main.Patients p WHERE " + archivedMatch;
+        String copySql = """
+            INSERT OR REPLACE INTO archive.Patients
+            SELECT *, datetime('now') FROM main.Patients WHERE discharge_date < ?
+        """;
+        String deleteSql = "DELETE FROM main.Patients AS p WHERE " + archivedMatch;
+        try (Connection conn = connectWithArchive();
+            PreparedStatement cutoffStmt = conn.prepareStatement(cutoffSql);
+            PreparedStatement idsStmt = conn.prepareStatement(idsSql);
+            PreparedStatement copyStmt = conn.prepareStatement(copySql);
+            PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
+            String cutoff;
+            cutoffStmt.setString(1, "-" + days + " days");
+            try (ResultSet rs = cutoffStmt.executeQuery()) {
+                rs.next();
+                cutoff = rs.getString("cutoff");
+            }
+
+            conn.setAutoCommit(false);
+            copyStmt.setString(1, cutoff);
+            copyStmt.executeUpdate();
+            conn.commit();
+
+            List<String> moved = new ArrayList<>();
+            idsStmt.setString(1, cutoff);
+            try (ResultSet rs = idsStmt.executeQuery()) {
+                while (rs.next()) moved.add(rs.getString("patient_id"));
+            }
+            deleteStmt.setString(1, cutoff);
+            deleteStmt.executeUpdate();
+            conn.commit();
+
+            for (String id : moved) {
+                nameIndex.remove(id);
+                patientCache.invalidate(id);
+            }
+            System.out.println("Archived " + moved.size() + " patient(s) discharged before " + cutoff + ".");
+        } catch (SQLException e) {
+            System.out.println("Error archiving records: " + e.getMessage());
+        }
+    }
+
     private static void countPatientsByDiagnosis() {
-        String sql = "SELECT diagnosis, COUNT(*) AS total FROM Patients GROUP BY diagnosis";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
+        String sql = """
+            SELECT diagnosis, COUNT(*) AS total FROM (
+                SELECT diagnosis FROM main.Patients
+                UNION ALL
+                SELECT diagnosis FROM archive.Patients
+            ) GROUP BY diagnosis
+        """;
+        try (Connection conn = connectWithArchive();
             Statement stmt = conn.createStatement();
             ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -257,5 +830,512 @@ public class HospitalSystem {
             System.out.println("Error generating report: " + e.getMessage());
         }
     }
+
+    // Midnight census: a stay counts on every day from admission up to the day before
+    // discharge. Each overlapping stay adds +1 at its (clipped) admission day and -1 at its
+    // discharge day in a difference array; one prefix-sum pass then yields every day's census.
+    private static void showCensus() {
+        LocalDate from, to;
+        try {
+            System.out.print("Enter From Date (YYYY-MM-DD): ");
+            from = LocalDate.parse(sc.nextLine().trim());
+            System.out.print("Enter To Date (YYYY-MM-DD): ");
+            to = LocalDate.parse(sc.nextLine().trim());
+        } catch (DateTimeParseException e) {
+            System.out.println("Error: Dates must be in YYYY-MM-DD format.");
+            return;
+        }
+        if (to.isBefore(from)) {
+            System.out.println("Error: To Date is before From Date.");
+            return;
+        }
+
+        int days = (int) (to.toEpochDay() - from.toEpochDay()) + 1;
+        int[] diff = new int[days + 1];
+        long[] skipped = { 0 };
+        String fromStr = from.toString(), toStr = to.toString();
+
+        // Stays admitted inside the range (seek on idx_patients_admission), then stays admitted
+        // earlier that were still open on the first day (seek on idx_patients_discharge).
+        // Both tiers are read; archived stays are always discharged.
+        String admittedInRange = """
+            SELECT admission_date, discharge_date FROM %s.Patients
+            WHERE admission_date >= ? AND admission_date <= ?
+        """;
+        String openAtStart = """
+            SELECT admission_date, discharge_date FROM %s.Patients
+            WHERE discharge_date > ? AND admission_date < ?
+            UNION ALL
+            SELECT admission_date, discharge_date FROM %1$s.Patients
+            WHERE discharge_date IS NULL AND admission_date < ?
+        """;
+        String losSql = """
+            SELECT COUNT(*) AS stays,
+                   SUM(julianday(discharge_date) - julianday(admission_date)) AS total_days
+            FROM %s.Patients WHERE discharge_date >= ? AND discharge_date <= ?
+        """;
+
+        long start = System.nanoTime();
+        try (Connection conn = connectWithArchive()) {
+            long stays = 0;
+            double stayDays = 0;
+            for (String tier : TIERS) {
+                try (PreparedStatement inRange = conn.prepareStatement(admittedInRange.formatted(tier));
+                    PreparedStatement atStart = conn.prepareStatement(openAtStart.formatted(tier));
+                    PreparedStatement los = conn.prepareStatement(losSql.formatted(tier))) {
+
+                    inRange.setString(1, fromStr);
+                    inRange.setString(2, toStr);
+                    inRange.setFetchSize(10_000);
+                    try (ResultSet rs = inRange.executeQuery()) {
+                        addStays(rs, from, days, diff, skipped);
+                    }
+
+                    atStart.setString(1, fromStr);
+                    atStart.setString(2, fromStr);
+                    atStart.setString(3, fromStr);
+                    atStart.setFetchSize(10_000);
+                    try (ResultSet rs = atStart.executeQuery()) {
+                        addStays(rs, from, days, diff, skipped);
+                    }
+
+                    los.setString(1, fromStr);
+                    los.setString(2, toStr);
+                    try (ResultSet rs = los.executeQuery()) {
+                        rs.next();
+                        stays += rs.getLong("stays");
+                        stayDays += rs.getDouble("total_days");
+                    }
+                }
+            }
+
+            int census = 0, peak = -1;
+            long total = 0;
+            LocalDate peakDay = from;
+            System.out.printf("%-12s %-10s%n", "Date", "Census");
+            System.out.println("----------------------");
+            for (int d = 0; d < days; d++) {
+                census += diff[d];
+                total += census;
+                if (census > peak) {
+                    peak = census;
+                    peakDay = from.plusDays(d);
+                }
+                System.out.printf("%-12s %-10d%n", from.plusDays(d), census);
+            }
+
+            System.out.println("----------------------");
+            System.out.printf("Peak Occupancy: %d on %s%n", peak, peakDay);
+            System.out.printf("Average Daily Census: %.1f%n", (double) total / days);
+            System.out.printf("Average Length of Stay: %.1f days (%d discharges)%n",
+                    stays == 0 ? 0.0 : stayDays / stays, stays);
+            if (skipped[0] > 0)
+                System.out.println("Skipped " + skipped[0] + " record(s) with unreadable dates.");
+            System.out.printf("Computed in %.0f ms%n", (System.nanoTime() - start) / 1e6);
+
+        } catch (SQLException e) {
+            System.out.println("Error generating report: " + e.getMessage());
+        }
+    }
+
+    private static void addStays(ResultSet rs, LocalDate from, int days, int[] diff, long[] skipped)
+            throws SQLException {
+        long base = from.toEpochDay();
+        while (rs.next()) {
+            String admit = rs.getString("admission_date");
+            String discharge = rs.getString("discharge_date");
+            if (admit == null) {
+                skipped[0]++;
+                continue;
+            }
+            long a, d;
+            try {
+                a = LocalDate.parse(admit).toEpochDay() - base;
+                d = discharge == null ? days : LocalDate.parse(discharge).toEpochDay() - base;
+            } catch (DateTimeParseException e) {
+                skipped[0]++;
+                continue;
+            }
+            a = Math.max(a, 0);
+            d = Math.min(d, days);
+            if (d <= a) continue;
+            diff[(int) a]++;
+            diff[(int) d]--;
+        }
+    }
+}
+
+// Bounded least-recently-used map with hit, miss and eviction counters.
+class LruCache<K, V> {
+    private final int capacity;
+    private final LinkedHashMap<K, V> map;
+    private long hits = 0, misses = 0, evictions = 0;
+
+    public LruCache(int capacity) {
+        this.capacity = capacity;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() <= LruCache.this.capacity) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        V value = map.get(key);
+        if (value == null) misses++;
+        else hits++;
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    public synchronized void invalidate(K key) {
+        map.remove(key);
+    }
+
+    public synchronized String stats() {
+        long lookups = hits + misses;
+        return String.format("Entries: %d/%d | Hits: %d | Misses: %d | Hit Rate: %.1f%% | Evictions: %d",
+                map.size(), capacity, hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups, evictions);
+    }
+}
+
+// Change-data-capture log for patient records. Callers enqueue an entry after their own
+// commit and return immediately; a single background writer drains the bounded queue and
+// inserts whatever has accumulated in one transaction. A full queue blocks the caller
+// rather than dropping entries, and close() writes everything still queued before returning.
+class AuditLog {
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int MAX_BATCH = 500;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long MAX_BACKOFF_MS = 5_000;
+    // How long close() waits for the writer before interrupting it, and again for the spill.
+    private static final long CLOSE_TIMEOUT_MS = 10_000;
+    // Entries that could not be committed before shutdown; replayed by the next writer.
+    private static final Path SPILL_FILE = Path.of("patient_audit.pending");
+    private static final Object STOP = new Object();
+
+    private record Entry(String patientId, String action, String before, String after, String changedAt)
+            implements Serializable {}
+
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final String url;
+    private final Thread writer;
+    private boolean closed = false;
+    // Set first thing in close(); the writer then stops retrying and spills instead.
+    private volatile boolean closing = false;
+
+    public AuditLog(String url) {
+        this.url = url;
+        this.writer = new Thread(this::run, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void record(String patientId, String action, String before, String after) {
+        enqueue(new Entry(patientId, action, before, after, Instant.now().toString()));
+    }
+
+    // Blocks until everything enqueued so far has been committed.
+    public void flush() {
+        CountDownLatch done = new CountDownLatch(1);
+        if (!enqueue(done)) return;
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Bounded even if the database stays unavailable: the writer gives up on failed batches
+    // once closing is set, and if it still hasn't finished in time it is interrupted, which
+    // makes it spill whatever it holds.
+    public synchronized void close() {
+        if (closed) return;
+        closing = true;
+        enqueue(STOP);
+        closed = true;
+        try {
+            writer.join(CLOSE_TIMEOUT_MS);
+            if (writer.isAlive()) {
+                writer.interrupt();
+                writer.join(CLOSE_TIMEOUT_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean enqueue(Object item) {
+        if (closed || !writer.isAlive()) {
+            System.out.println("Audit log is not running; " + item + " not recorded.");
+            return false;
+        }
+        try {
+            queue.put(item);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Interrupted while recording audit entry: " + item);
+            return false;
+        }
+    }
+
+    // A failed batch is retried with growing backoff until it commits. Only at shutdown, or
+    // if the writer itself dies, are uncommitted entries spilled to SPILL_FILE instead; then
+    // everything still queued is spilled with them in one go.
+    private void run() {
+        String sql = """
+            INSERT INTO PatientAudit (patient_id, action, before_values, after_values, changed_at)
+            VALUES (?, ?, ?, ?, ?)
+        """;
+        List<Object> batch = new ArrayList<>(MAX_BATCH);
+        try (Connection conn = DriverManager.getConnection(url);
+            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            List<Entry> spilled = readSpill();
+            if (!spilled.isEmpty() && write(conn, pstmt, new ArrayList<>(spilled), true)) {
+                Files.delete(SPILL_FILE);
+                System.out.println("Replayed " + spilled.size() + " pending audit entries.");
+            }
+
+            boolean stopping = false;
+            while (!stopping) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                stopping = batch.contains(STOP);
+
+                if (!write(conn, pstmt, batch, stopping)) {
+                    queue.drainTo(batch);
+                    stopping |= batch.contains(STOP);
+                    spill(batch);
+                }
+
+                for (Object item : batch) {
+                    if (item instanceof CountDownLatch done) done.countDown();
+                }
+                batch.clear();
+            }
+        } catch (SQLException | IOException e) {
+            System.out.println("Audit writer stopped: " + e.getMessage());
+            queue.drainTo(batch);
+            spill(batch);
+        } catch (InterruptedException e) {
+            // Spill before restoring the flag: an interrupted thread's file channels close on it.
+            queue.drainTo(batch);
+            spill(batch);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Returns false if the log is closing and an attempt has failed, or if bounded and
+    // MAX_ATTEMPTS attempts have failed.
+    private boolean write(Connection conn, PreparedStatement pstmt, List<Object> batch, boolean bounded)
+            throws SQLException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                for (Object item : batch) {
+                    if (item instanceof Entry e) {
+                        pstmt.setString(1, e.patientId());
+                        pstmt.setString(2, e.action());
+                        pstmt.setString(3, e.before());
+                        pstmt.setString(4, e.after());
+                        pstmt.setString(5, e.changedAt());
+                        pstmt.addBatch();
+                    }
+                }
+                pstmt.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                pstmt.clearBatch();
+                conn.rollback();
+                if (closing) {
+                    System.out.println("Error writing audit batch of " + batch.size() + " at shutdown: " + e.getMessage());
+                    return false;
+                }
+                if (attempt % MAX_ATTEMPTS == 0) {
+                    System.out.println("Error writing audit batch of " + batch.size() + " (attempt "
+                            + attempt + "): " + e.getMessage());
+                    if (bounded) return false;
+                }
+                Thread.sleep(Math.min(100L << Math.min(attempt - 1, 16), MAX_BACKOFF_MS));
+            }
+        }
+    }
+
+    // Appends the batch's entries to SPILL_FILE, rewriting it through a temp file so a crash
+    // mid-write leaves the previous contents intact.
+    private static void spill(List<Object> batch) {
+        List<Entry> entries = readSpill();
+        for (Object item : batch) {
+            if (item instanceof Entry e) entries.add(e);
+        }
+        if (entries.isEmpty()) return;
+        Path tmp = Path.of(SPILL_FILE + ".tmp");
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(tmp))) {
+            out.writeObject(new ArrayList<>(entries));
+        } catch (IOException e) {
+            System.out.println("Error spilling " + entries.size() + " audit entries: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(tmp, SPILL_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println(entries.size() + " audit entries saved to " + SPILL_FILE + " for replay.");
+        } catch (IOException e) {
+            System.out.println("Error spilling " + entries.size() + " audit entries: " + e.getMessage());
+        }
+    }
+
+    // An unreadable spill file is moved aside rather than overwritten.
+    @SuppressWarnings("unchecked")
+    private static List<Entry> readSpill() {
+        if (!Files.exists(SPILL_FILE)) return new ArrayList<>();
+        try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(SPILL_FILE))) {
+            return (List<Entry>) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            Path corrupt = Path.of(SPILL_FILE + ".corrupt");
+            System.out.println("Error reading " + SPILL_FILE + "; moved to " + corrupt + ": " + e.getMessage());
+            try {
+                Files.move(SPILL_FILE, corrupt, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException moveError) {
+                System.out.println("Error moving " + SPILL_FILE + ": " + moveError.getMessage());
+            }
+            return new ArrayList<>();
+        }
+    }
 }
 
+// In-memory fuzzy index over patient names. Every name word is filed under its Soundex code,
+// under the code's digits alone (so a wrong first letter such as "Catherine"/"Katherine"
+// still lands in the same bucket) and in a sorted word map for prefix lookups. A search
+// gathers candidates from those buckets and ranks them by normalized edit distance.
+class PatientNameIndex {
+    private static final double MAX_DISTANCE = 0.4;
+
+    private final Map<String, String[]> wordsById = new HashMap<>();
+    private final Map<String, Set<String>> byCode = new HashMap<>();
+    private final TreeMap<String, Set<String>> byWord = new TreeMap<>();
+
+    public synchronized void put(String id, String fullName) {
+        remove(id);
+        String[] words = words(fullName);
+        wordsById.put(id, words);
+        for (String w : words) {
+            String code = soundex(w);
+            byCode.computeIfAbsent(code, k -> new HashSet<>()).add(id);
+            byCode.computeIfAbsent(code.substring(1), k -> new HashSet<>()).add(id);
+            byWord.computeIfAbsent(w, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    public synchronized void remove(String id) {
+        String[] words = wordsById.remove(id);
+        if (words == null) return;
+        for (String w : words) {
+            String code = soundex(w);
+            removeFrom(byCode, code, id);
+            removeFrom(byCode, code.substring(1), id);
+            removeFrom(byWord, w, id);
+        }
+    }
+
+    // Patient IDs whose names resemble the query, best match first.
+    public synchronized List<String> search(String query, int limit) {
+        String[] terms = words(query);
+        if (terms.length == 0) return List.of();
+
+        Set<String> candidates = new HashSet<>();
+        for (String t : terms) {
+            String code = soundex(t);
+            candidates.addAll(byCode.getOrDefault(code, Set.of()));
+            candidates.addAll(byCode.getOrDefault(code.substring(1), Set.of()));
+            for (Set<String> ids : byWord.subMap(t, t + Character.MAX_VALUE).values())
+                candidates.addAll(ids);
+        }
+
+        Map<String, Double> scores = new HashMap<>();
+        for (String id : candidates) {
+            double score = score(terms, wordsById.get(id));
+            if (score <= MAX_DISTANCE) scores.put(id, score);
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    // Average, over query words, of the closest name word: 0 for a prefix hit, otherwise
+    // edit distance divided by the longer word's length.
+    private static double score(String[] terms, String[] words) {
+        double total = 0;
+        for (String t : terms) {
+            double best = 1.0;
+            for (String w : words) {
+                if (w.startsWith(t)) {
+                    best = 0;
+                    break;
+                }
+                best = Math.min(best, (double) editDistance(t, w) / Math.max(t.length(), w.length()));
+            }
+            total += best;
+        }
+        return total / terms.length;
+    }
+
+    private static int editDistance(String a, String b) {
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+            }
+            int[] tmp = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        return prev[b.length()];
+    }
+
+    // American Soundex: first letter plus three digits; H and W do not separate equal codes.
+    static String soundex(String word) {
+        final String codes = "01230120022455012623010202";
+        StringBuilder sb = new StringBuilder().append(Character.toUpperCase(word.charAt(0)));
+        char last = codeOf(codes, word.charAt(0));
+        for (int i = 1; i < word.length() && sb.length() < 4; i++) {
+            char c = word.charAt(i);
+            char code = codeOf(codes, c);
+            if (code != '0' && code != last) sb.append(code);
+            if (c != 'h' && c != 'w') last = code;
+        }
+        while (sb.length() < 4) sb.append('0');
+        return sb.toString();
+    }
+
+    private static char codeOf(String codes, char c) {
+        return c >= 'a' && c <= 'z' ? codes.charAt(c - 'a') : '0';
+    }
+
+    private static String[] words(String name) {
+        if (name == null) return new String[0];
+        return Arrays.stream(name.toLowerCase().split("[^a-z]+"))
+                .filter(w -> !w.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static void removeFrom(Map<String, Set<String>> map, String key, String id) {
+        Set<String> ids = map.get(key);
+        if (ids == null) return;
+        ids.remove(id);
+        if (ids.isEmpty()) map.remove(key);
+    }
+}
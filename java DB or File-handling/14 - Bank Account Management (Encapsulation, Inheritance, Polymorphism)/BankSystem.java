@@ -1,28 +1,103 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
 
 abstract class Account {
     private String accountNumber;
     private String holderName;
-    protected double balance;  // protected to allow subclass access
+    // Whole cents, so concurrent updates never accumulate floating-point error. Every
+    // read-modify-write holds this account's lock; different accounts never contend.
+    private volatile long balanceCents;
+    final ReentrantLock lock = new ReentrantLock();
+    private Journal journal;  // set once the account is registered with a journaled engine
 
     public Account(String accountNumber, String holderName, double balance) {
         this.accountNumber = accountNumber;
         this.holderName = holderName;
-        this.balance = balance;
+        this.balanceCents = toCents(balance);
+    }
+
+    static long toCents(double amount) {
+        return Math.round(amount * 100);
     }
 
     // --- Encapsulation: getters and setters ---
     public String getAccountNumber() { return accountNumber; }
     public String getHolderName() { return holderName; }
-    public double getBalance() { return balance; }
+    public double getBalance() { return balanceCents / 100.0; }
+    public long getBalanceCents() { return balanceCents; }
+
+    // Lowest balance a withdrawal may leave behind; each account type sets its own rule.
+    protected abstract long floorCents();
+
+    // Both return only once the change is durable, but wait for the journal after releasing the
+    // lock so other threads can queue their records into the same group commit.
+    public boolean tryDeposit(long cents) {
+        if (cents <= 0) return false;
+        long lsn;
+        lock.lock();
+        try {
+            lsn = commitBalance(balanceCents + cents);
+        } finally {
+            lock.unlock();
+        }
+        if (lsn > 0) journal.awaitDurable(lsn);
+        return true;
+    }
+
+    public boolean tryWithdraw(long cents) {
+        if (cents <= 0) return false;
+        long lsn;
+        lock.lock();
+        try {
+            if (balanceCents - cents < floorCents()) return false;
+            lsn = commitBalance(balanceCents - cents);
+        } finally {
+            lock.unlock();
+        }
+        if (lsn > 0) journal.awaitDurable(lsn);
+        return true;
+    }
+
+    // Caller holds lock, so this account's records reach the journal in the order the changes
+    // were applied. The record goes first: if the journal fails, the balance is left untouched.
+    private long commitBalance(long newCents) {
+        long lsn = journal == null ? 0 : journal.append(Journal.BALANCE, (byte) 0, newCents, 0, accountNumber, null);
+        balanceCents = newCents;
+        return lsn;
+    }
+
+    // For recovery and multi-account operations that journal the change themselves.
+    void setBalanceCents(long cents) {
+        balanceCents = cents;
+    }
+
+    void attach(Journal journal) {
+        this.journal = journal;
+    }
 
     public void deposit(double amount) {
-        if (amount <= 0) {
+        if (!tryDeposit(toCents(amount))) {
             System.out.println("Error: Deposit amount must be positive.");
             return;
         }
-        balance += amount;
-        System.out.println("Deposit successful! New Balance: " + balance);
+        System.out.println("Deposit successful! New Balance: " + getBalance());
     }
 
     public abstract void withdraw(double amount);  // Polymorphic behavior
@@ -31,7 +106,7 @@ abstract class Account {
         System.out.println("----------------------------------------");
         System.out.println("Account Number: " + accountNumber);
         System.out.println("Holder Name:    " + holderName);
-        System.out.println("Balance:        " + balance);
+        System.out.println("Balance:        " + getBalance());
         System.out.println("----------------------------------------");
     }
 }
@@ -39,11 +114,17 @@ abstract class Account {
 // --- Derived Class: SavingsAccount ---
 class SavingsAccount extends Account {
     private static final double MIN_BALANCE = 500.0;
+    static final long FLOOR_CENTS = toCents(MIN_BALANCE);
 
     public SavingsAccount(String accountNumber, String holderName, double balance) {
         super(accountNumber, holderName, balance);
     }
 
+    @Override
+    protected long floorCents() {
+        return FLOOR_CENTS;
+    }
+
     @Override
     public void withdraw(double amount) {
         if (amount <= 0) {
@@ -51,11 +132,10 @@ class SavingsAccount extends Account {
             return;
         }
 
-        if (balance - amount < MIN_BALANCE) {
+        if (!tryWithdraw(toCents(amount))) {
             System.out.println("Error: Minimum balance of 500 must be maintained.");
         } else {
-            balance -= amount;
-            System.out.println("Withdrawal successful! New Balance: " + balance);
+            System.out.println("Withdrawal successful! New Balance: " + getBalance());
         }
     }
 }
@@ -63,11 +143,17 @@ class SavingsAccount extends Account {
 // --- Derived Class: CheckingAccount ---
 class CheckingAccount extends Account {
     private static final double OVERDRAFT_LIMIT = -1000.0;
+    static final long FLOOR_CENTS = toCents(OVERDRAFT_LIMIT);
 
     public CheckingAccount(String accountNumber, String holderName, double balance) {
         super(accountNumber, holderName, balance);
     }
 
+    @Override
+    protected long floorCents() {
+        return FLOOR_CENTS;
+    }
+
     @Override
     public void withdraw(double amount) {
         if (amount <= 0) {
@@ -75,21 +161,1011 @@ class CheckingAccount extends Account {
             return;
         }
 
-        if (balance - amount < OVERDRAFT_LIMIT) {
+        if (!tryWithdraw(toCents(amount))) {
             System.out.println("Error: Overdraft limit of -1000 exceeded.");
         } else {
-            balance -= amount;
-            System.out.println("Withdrawal successful! New Balance: " + balance);
+            System.out.println("Withdrawal successful! New Balance: " + getBalance());
+        }
+    }
+}
+
+// --- Cents-based operations shared by the interchangeable account stores ---
+interface AccountStore {
+    byte SAVINGS = 1, CHECKING = 2;
+
+    enum Result { OK, NO_SUCH_ACCOUNT, INVALID_AMOUNT, LIMIT_EXCEEDED, SAME_ACCOUNT }
+
+    record Transfer(String from, String to, long cents) {}
+
+    // Returns false if the account number is already taken.
+    boolean open(String accountNumber, String holderName, byte kind, long balanceCents);
+
+    Result deposit(String accountNumber, long cents);
+
+    Result withdraw(String accountNumber, long cents);
+
+    // Must be atomic: both balances change or neither does.
+    Result transfer(String fromNumber, String toNumber, long cents);
+
+    OptionalLong balanceCents(String accountNumber);
+
+    Optional<String> holderName(String accountNumber);
+
+    // Must not observe a transfer halfway through.
+    long totalCents();
+
+    int size();
+
+    static long floorCents(byte kind) {
+        return kind == SAVINGS ? SavingsAccount.FLOOR_CENTS : CheckingAccount.FLOOR_CENTS;
+    }
+
+    // Transfers that share an account, directly or through a chain of other transfers, form one
+    // group and run in submission order; independent groups run in parallel. Every account
+    // therefore ends up as if the batch had been applied serially. Results match input order.
+    default Result[] transferAll(List<Transfer> batch) {
+        Map<String, String> parent = new HashMap<>();
+        for (Transfer t : batch) union(parent, t.from(), t.to());
+
+        Map<String, List<Integer>> groups = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            groups.computeIfAbsent(root(parent, batch.get(i).from()), k -> new ArrayList<>()).add(i);
+        }
+
+        Result[] results = new Result[batch.size()];
+        groups.values().parallelStream().forEach(group -> {
+            for (int i : group) {
+                Transfer t = batch.get(i);
+                results[i] = transfer(t.from(), t.to(), t.cents());
+            }
+        });
+        return results;
+    }
+
+    private static void union(Map<String, String> parent, String a, String b) {
+        parent.putIfAbsent(a, a);
+        parent.putIfAbsent(b, b);
+        String ra = root(parent, a);
+        String rb = root(parent, b);
+        if (!ra.equals(rb)) parent.put(ra, rb);
+    }
+
+    private static String root(Map<String, String> parent, String x) {
+        while (!parent.get(x).equals(x)) {
+            parent.put(x, parent.get(parent.get(x)));  // path halving
+            x = parent.get(x);
+        }
+        return x;
+    }
+}
+
+// --- Concurrent registry with cents-based operations for multi-threaded callers ---
+class TransactionEngine implements AccountStore {
+    private final ConcurrentHashMap<String, Account> accounts = new ConcurrentHashMap<>();
+    private Journal journal;  // null for purely in-memory engines, such as the stress test's
+    private Path snapshotPath;
+    private long lastCheckpointLsn;
+    private ScheduledExecutorService checkpointer;
+
+    // Loads the latest snapshot, replays the journal records written after it, then journals
+    // every later change.
+    static TransactionEngine recover(Path journalBase, Path snapshotPath) throws IOException {
+        TransactionEngine engine = new TransactionEngine();
+        long snapshotLsn = Snapshot.load(snapshotPath, acc -> engine.accounts.put(acc.getAccountNumber(), acc));
+        engine.journal = Journal.open(journalBase, snapshotLsn, engine::replay);
+        engine.snapshotPath = snapshotPath;
+        engine.lastCheckpointLsn = snapshotLsn;
+        for (Account acc : engine.accounts.values()) acc.attach(engine.journal);
+        return engine;
+    }
+
+    // Checkpoints in the background whenever something was journaled since the last one.
+    void startCheckpoints(long intervalSeconds) {
+        checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "checkpointer");
+            t.setDaemon(true);
+            return t;
+        });
+        checkpointer.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+            } catch (IOException | UncheckedIOException e) {
+                System.out.println("Checkpoint failed: " + e.getMessage());
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    // Snapshots every account as of the current journal LSN without pausing writers: each
+    // account is locked only while its balance is read. A change that lands after the LSN was
+    // taken is also in the journal tail, and replaying its new balance over the snapshot
+    // converges. Journal segments the snapshot fully covers are then deleted.
+    synchronized void checkpoint() throws IOException {
+        long lsn = journal.lastLsn();
+        if (lsn == lastCheckpointLsn) return;
+        Path tmp = Snapshot.writeTemp(snapshotPath, lsn, new ArrayList<>(accounts.values()));
+        // Entries may reflect records appended while they were encoded, including one side of a
+        // transfer. Those records must be durable before the snapshot replaces the old one, or a
+        // crash would leave a snapshot that no journal record can repair.
+        journal.awaitDurable(journal.lastLsn());
+        Snapshot.publish(tmp, snapshotPath);
+        journal.discardThrough(lsn);
+        lastCheckpointLsn = lsn;
+    }
+
+    private void replay(Journal.Entry e) {
+        switch (e.type()) {
+            case Journal.OPEN -> accounts.put(e.textA(), newAccount(e.kind(), e.textA(), e.textB(), e.amountA()));
+            case Journal.BALANCE -> accounts.get(e.textA()).setBalanceCents(e.amountA());
+            case Journal.TRANSFER -> {
+                accounts.get(e.textA()).setBalanceCents(e.amountA());
+                accounts.get(e.textB()).setBalanceCents(e.amountB());
+            }
+            default -> throw new IllegalStateException("Unknown journal record type " + e.type());
+        }
+    }
+
+    @Override
+    public boolean open(String accountNumber, String holderName, byte kind, long balanceCents) {
+        return open(newAccount(kind, accountNumber, holderName, balanceCents));
+    }
+
+    static Account newAccount(byte kind, String accountNumber, String holderName, long balanceCents) {
+        Account acc = kind == SAVINGS
+                ? new SavingsAccount(accountNumber, holderName, 0.0)
+                : new CheckingAccount(accountNumber, holderName, 0.0);
+        acc.setBalanceCents(balanceCents);
+        return acc;
+    }
+
+    // Returns false if the account number is already taken. The new account stays locked until
+    // its OPEN record is queued, so nobody can journal a deposit to it ahead of that record.
+    public boolean open(Account acc) {
+        if (!Journal.fits(acc.getAccountNumber(), Journal.ACCOUNT_NUMBER_BYTES)
+                || !Journal.fits(acc.getHolderName(), Journal.HOLDER_NAME_BYTES)) {
+            throw new IllegalArgumentException("Account number or holder name too long");
+        }
+        long lsn = 0;
+        acc.lock.lock();
+        try {
+            if (accounts.putIfAbsent(acc.getAccountNumber(), acc) != null) return false;
+            if (journal != null) {
+                try {
+                    lsn = journal.append(Journal.OPEN, Journal.kindOf(acc), acc.getBalanceCents(), 0,
+                            acc.getAccountNumber(), acc.getHolderName());
+                } catch (RuntimeException e) {
+                    accounts.remove(acc.getAccountNumber(), acc);
+                    throw e;
+                }
+                acc.attach(journal);
+            }
+        } finally {
+            acc.lock.unlock();
+        }
+        if (lsn > 0) journal.awaitDurable(lsn);
+        return true;
+    }
+
+    public void close() {
+        if (checkpointer != null) {
+            checkpointer.shutdown();
+            try {
+                checkpointer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) journal.close();
+    }
+
+    @Override
+    public int size() {
+        return accounts.size();
+    }
+
+    public String journalStats() {
+        return journal == null ? "Journal: off" : journal.stats();
+    }
+
+    public Account find(String accountNumber) {
+        return accounts.get(accountNumber);
+    }
+
+    @Override
+    public Optional<String> holderName(String accountNumber) {
+        return Optional.ofNullable(accounts.get(accountNumber)).map(Account::getHolderName);
+    }
+
+    public Collection<Account> all() {
+        return accounts.values();
+    }
+
+    @Override
+    public OptionalLong balanceCents(String accountNumber) {
+        Account acc = accounts.get(accountNumber);
+        return acc == null ? OptionalLong.empty() : OptionalLong.of(acc.getBalanceCents());
+    }
+
+    @Override
+    public Result deposit(String accountNumber, long cents) {
+        if (cents <= 0) return Result.INVALID_AMOUNT;
+        Account acc = accounts.get(accountNumber);
+        if (acc == null) return Result.NO_SUCH_ACCOUNT;
+        acc.tryDeposit(cents);
+        return Result.OK;
+    }
+
+    @Override
+    public Result withdraw(String accountNumber, long cents) {
+        if (cents <= 0) return Result.INVALID_AMOUNT;
+        Account acc = accounts.get(accountNumber);
+        if (acc == null) return Result.NO_SUCH_ACCOUNT;
+        return acc.tryWithdraw(cents) ? Result.OK : Result.LIMIT_EXCEEDED;
+    }
+
+    // Debits and credits while holding both account locks. The locks are always taken in
+    // account-number order, so two transfers in opposite directions can never wait on each other.
+    @Override
+    public Result transfer(String fromNumber, String toNumber, long cents) {
+        if (cents <= 0) return Result.INVALID_AMOUNT;
+        if (fromNumber.equals(toNumber)) return Result.SAME_ACCOUNT;
+        Account from = accounts.get(fromNumber);
+        Account to = accounts.get(toNumber);
+        if (from == null || to == null) return Result.NO_SUCH_ACCOUNT;
+
+        Account first = fromNumber.compareTo(toNumber) < 0 ? from : to;
+        Account second = first == from ? to : from;
+        long lsn = 0;
+        first.lock.lock();
+        try {
+            second.lock.lock();
+            try {
+                long fromCents = from.getBalanceCents() - cents;
+                if (fromCents < from.floorCents()) return Result.LIMIT_EXCEEDED;
+                long toCents = to.getBalanceCents() + cents;
+                // One record carries both new balances, so replay can never apply half a transfer.
+                if (journal != null) {
+                    lsn = journal.append(Journal.TRANSFER, (byte) 0, fromCents, toCents, fromNumber, toNumber);
+                }
+                from.setBalanceCents(fromCents);
+                to.setBalanceCents(toCents);
+            } finally {
+                second.lock.unlock();
+            }
+        } finally {
+            first.lock.unlock();
+        }
+        if (lsn > 0) journal.awaitDurable(lsn);
+        return Result.OK;
+    }
+
+    // Sum of all balances with every account locked in transfer order, so no transfer can be
+    // caught halfway through.
+    @Override
+    public long totalCents() {
+        List<Account> ordered = new ArrayList<>(accounts.values());
+        ordered.sort(Comparator.comparing(Account::getAccountNumber));
+        int locked = 0;
+        try {
+            long total = 0;
+            for (Account acc : ordered) {
+                acc.lock.lock();
+                locked++;
+                total += acc.getBalanceCents();
+            }
+            return total;
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) ordered.get(i).lock.unlock();
+        }
+    }
+}
+
+// --- Primitive account store for very large account counts ---
+// Holds no object per account. Account numbers are interned to dense indexes through an
+// open-addressing table; balances and the other per-account fields live in chunks of primitive
+// arrays that never move once allocated; account numbers and holder names are packed into a
+// char arena. The garbage collector sees a few large arrays instead of millions of small
+// objects. Balance updates take one of STRIPES locks, chosen by account index.
+class PrimitiveAccountStore implements AccountStore {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    private static final int ARENA_CHUNK_CHARS = 1 << 20;
+    private static final int MAX_TEXT_CHARS = 255;
+    private static final int STRIPES = 1024;
+
+    // Directories are replaced, never modified, when they grow. Growth happens under openLock
+    // and is published by the volatile table write that makes the new index findable.
+    private volatile long[][] balances = new long[0][];
+    private volatile byte[][] kinds = new byte[0][];
+    private volatile long[][] numberRefs = new long[0][];  // arena position << 8 | length
+    private volatile long[][] holderRefs = new long[0][];
+    private volatile char[][] arena = new char[0][];
+    private int arenaUsed = ARENA_CHUNK_CHARS;  // chars used in the last arena chunk
+    // Each slot is hash << 32 | (index + 1), or 0 when empty; kept at most half full.
+    private volatile AtomicLongArray table = new AtomicLongArray(1024);
+    private volatile int size;
+    private final Object openLock = new Object();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    public PrimitiveAccountStore() {
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ReentrantLock();
+    }
+
+    @Override
+    public boolean open(String accountNumber, String holderName, byte kind, long balanceCents) {
+        if (accountNumber.length() > MAX_TEXT_CHARS || holderName.length() > MAX_TEXT_CHARS) {
+            throw new IllegalArgumentException("Text too long for account store");
+        }
+        synchronized (openLock) {
+            int hash = hash(accountNumber);
+            if (indexOf(accountNumber, hash) >= 0) return false;
+            int index = size;
+            int chunk = index >>> CHUNK_BITS;
+            int slot = index & CHUNK_MASK;
+            if (chunk == balances.length) addChunk();
+            balances[chunk][slot] = balanceCents;
+            kinds[chunk][slot] = kind;
+            numberRefs[chunk][slot] = appendText(accountNumber);
+            holderRefs[chunk][slot] = appendText(holderName);
+            if ((index + 1) * 2 > table.length()) table = rehash(table, table.length() * 2);
+            insert(table, hash, index);
+            size = index + 1;
+            return true;
+        }
+    }
+
+    @Override
+    public Result deposit(String accountNumber, long cents) {
+        if (cents <= 0) return Result.INVALID_AMOUNT;
+        int index = indexOf(accountNumber, hash(accountNumber));
+        if (index < 0) return Result.NO_SUCH_ACCOUNT;
+        ReentrantLock lock = stripes[index & (STRIPES - 1)];
+        lock.lock();
+        try {
+            balances[index >>> CHUNK_BITS][index & CHUNK_MASK] += cents;
+            return Result.OK;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Result withdraw(String accountNumber, long cents) {
+        if (cents <= 0) return Result.INVALID_AMOUNT;
+        int index = indexOf(accountNumber, hash(accountNumber));
+        if (index < 0) return Result.NO_SUCH_ACCOUNT;
+        long[] chunk = balances[index >>> CHUNK_BITS];
+        int slot = index & CHUNK_MASK;
+        ReentrantLock lock = stripes[index & (STRIPES - 1)];
+        lock.lock();
+        try {
+            if (chunk[slot] - cents < floorOf(index)) return Result.LIMIT_EXCEEDED;
+            chunk[slot] -= cents;
+            return Result.OK;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Same ordered locking as TransactionEngine, by stripe number instead of account number.
+    @Override
+    public Result transfer(String fromNumber, String toNumber, long cents) {
+        if (cents <= 0) return Result.INVALID_AMOUNT;
+        if (fromNumber.equals(toNumber)) return Result.SAME_ACCOUNT;
+        int from = indexOf(fromNumber, hash(fromNumber));
+        int to = indexOf(toNumber, hash(toNumber));
+        if (from < 0 || to < 0) return Result.NO_SUCH_ACCOUNT;
+
+        int fromStripe = from & (STRIPES - 1);
+        int toStripe = to & (STRIPES - 1);
+        ReentrantLock first = stripes[Math.min(fromStripe, toStripe)];
+        ReentrantLock second = stripes[Math.max(fromStripe, toStripe)];
+        long[] fromChunk = balances[from >>> CHUNK_BITS];
+        long[] toChunk = balances[to >>> CHUNK_BITS];
+        first.lock();
+        try {
+            second.lock();  // reentrant when both accounts share a stripe
+            try {
+                if (fromChunk[from & CHUNK_MASK] - cents < floorOf(from)) return Result.LIMIT_EXCEEDED;
+                fromChunk[from & CHUNK_MASK] -= cents;
+                toChunk[to & CHUNK_MASK] += cents;
+                return Result.OK;
+            } finally {
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    @Override
+    public OptionalLong balanceCents(String accountNumber) {
+        int index = indexOf(accountNumber, hash(accountNumber));
+        if (index < 0) return OptionalLong.empty();
+        ReentrantLock lock = stripes[index & (STRIPES - 1)];
+        lock.lock();
+        try {
+            return OptionalLong.of(balances[index >>> CHUNK_BITS][index & CHUNK_MASK]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<String> holderName(String accountNumber) {
+        int index = indexOf(accountNumber, hash(accountNumber));
+        return index < 0 ? Optional.empty() : Optional.of(text(holderRefs[index >>> CHUNK_BITS][index & CHUNK_MASK]));
+    }
+
+    @Override
+    public long totalCents() {
+        for (ReentrantLock lock : stripes) lock.lock();
+        try {
+            long[][] chunks = balances;
+            int count = size;
+            long total = 0;
+            for (int i = 0; i < count; i++) total += chunks[i >>> CHUNK_BITS][i & CHUNK_MASK];
+            return total;
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) stripes[i].unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private long floorOf(int index) {
+        return AccountStore.floorCents(kinds[index >>> CHUNK_BITS][index & CHUNK_MASK]);
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int indexOf(String key, int hash) {
+        AtomicLongArray t = table;
+        int mask = t.length() - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            long entry = t.get(i);
+            if (entry == 0) return -1;
+            int index = (int) entry - 1;
+            if ((int) (entry >>> 32) == hash && numberEquals(index, key)) return index;
+        }
+    }
+
+    private static void insert(AtomicLongArray t, int hash, int index) {
+        int mask = t.length() - 1;
+        int i = hash & mask;
+        while (t.get(i) != 0) i = (i + 1) & mask;
+        t.set(i, (long) hash << 32 | (index + 1));
+    }
+
+    private static AtomicLongArray rehash(AtomicLongArray old, int capacity) {
+        AtomicLongArray grown = new AtomicLongArray(capacity);
+        for (int i = 0; i < old.length(); i++) {
+            long entry = old.get(i);
+            if (entry != 0) insert(grown, (int) (entry >>> 32), (int) entry - 1);
+        }
+        return grown;
+    }
+
+    private void addChunk() {
+        int n = balances.length;
+        long[][] newBalances = Arrays.copyOf(balances, n + 1);
+        newBalances[n] = new long[CHUNK_MASK + 1];
+        byte[][] newKinds = Arrays.copyOf(kinds, n + 1);
+        newKinds[n] = new byte[CHUNK_MASK + 1];
+        long[][] newNumberRefs = Arrays.copyOf(numberRefs, n + 1);
+        newNumberRefs[n] = new long[CHUNK_MASK + 1];
+        long[][] newHolderRefs = Arrays.copyOf(holderRefs, n + 1);
+        newHolderRefs[n] = new long[CHUNK_MASK + 1];
+        balances = newBalances;
+        kinds = newKinds;
+        numberRefs = newNumberRefs;
+        holderRefs = newHolderRefs;
+    }
+
+    private long appendText(String text) {
+        int len = text.length();
+        if (arenaUsed + len > ARENA_CHUNK_CHARS) {
+            char[][] grown = Arrays.copyOf(arena, arena.length + 1);
+            grown[arena.length] = new char[ARENA_CHUNK_CHARS];
+            arena = grown;
+            arenaUsed = 0;
+        }
+        int chunk = arena.length - 1;
+        text.getChars(0, len, arena[chunk], arenaUsed);
+        long ref = ((long) chunk * ARENA_CHUNK_CHARS + arenaUsed) << 8 | len;
+        arenaUsed += len;
+        return ref;
+    }
+
+    private String text(long ref) {
+        long pos = ref >>> 8;
+        return new String(arena[(int) (pos / ARENA_CHUNK_CHARS)], (int) (pos % ARENA_CHUNK_CHARS), (int) (ref & 0xFF));
+    }
+
+    // Compares in place, so lookups allocate nothing.
+    private boolean numberEquals(int index, String key) {
+        long ref = numberRefs[index >>> CHUNK_BITS][index & CHUNK_MASK];
+        int len = (int) (ref & 0xFF);
+        if (len != key.length()) return false;
+        long pos = ref >>> 8;
+        char[] chars = arena[(int) (pos / ARENA_CHUNK_CHARS)];
+        int offset = (int) (pos % ARENA_CHUNK_CHARS);
+        for (int i = 0; i < len; i++) {
+            if (chars[offset + i] != key.charAt(i)) return false;
+        }
+        return true;
+    }
+}
+
+// --- Append-only write-ahead journal ---
+// Every record is RECORD_SIZE bytes:
+//   0  long   LSN (1, 2, 3, ... with no gaps)
+//   8  byte   type: OPEN, BALANCE or TRANSFER
+//   9  byte   account kind (OPEN only)
+//   10 short  reserved
+//   12 long   amountA: opening balance, new balance, or the source's new balance
+//   20 long   amountB: the destination's new balance (TRANSFER only)
+//   28 32B    textA: account number, zero-padded UTF-8
+//   60 64B    textB: holder name (OPEN) or destination account number (TRANSFER)
+//   124 int   CRC32 of bytes 0-123
+// Records carry new balances rather than deltas, so replaying one twice is harmless.
+// Appenders copy their record into a shared buffer; a single flusher thread writes whatever
+// has accumulated and covers it all with one force(), so concurrent operations share an fsync.
+// The journal is split into segment files named <base>.<first LSN>, so a checkpoint can drop
+// the segments it covers instead of rewriting the file.
+class Journal implements AutoCloseable {
+    static final int RECORD_SIZE = 128;
+    static final int ACCOUNT_NUMBER_BYTES = 32;
+    static final int HOLDER_NAME_BYTES = 64;
+    static final byte OPEN = 1, BALANCE = 2, TRANSFER = 3;
+    private static final int BUFFER_RECORDS = 4096;
+    private static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    record Entry(long lsn, byte type, byte kind, long amountA, long amountB, String textA, String textB) {}
+
+    private final Path base;
+    private FileChannel channel;  // the active segment; only the flusher touches it after open
+    private final Thread flusher;
+    private ByteBuffer filling = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+    private ByteBuffer draining = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+    private long lastLsn;
+    private long durableLsn;
+    private long records, forces;
+    private IOException failure;
+    private boolean closed;
+
+    private Journal(Path base, FileChannel channel, long lastLsn) {
+        this.base = base;
+        this.channel = channel;
+        this.lastLsn = lastLsn;
+        this.durableLsn = lastLsn;
+        this.flusher = new Thread(this::run, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Feeds every intact record after afterLsn to replay in order, then cuts off any torn or
+    // corrupt tail a crash left in the last segment so new records follow the last good one.
+    static Journal open(Path base, long afterLsn, Consumer<Entry> replay) throws IOException {
+        List<Path> segments = segments(base);
+        if (segments.isEmpty() && Files.isRegularFile(base)) {
+            // A journal written before segmenting holds everything from LSN 1.
+            Files.move(base, segmentPath(base, 1));
+            segments = segments(base);
+        }
+        if (segments.isEmpty()) {
+            FileChannel channel = FileChannel.open(segmentPath(base, afterLsn + 1),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            syncDirectory(base);
+            return new Journal(base, channel, afterLsn);
+        }
+
+        // Skip segments the snapshot already covers.
+        int first = 0;
+        while (first + 1 < segments.size() && firstLsnOf(segments.get(first + 1)) <= afterLsn + 1) first++;
+        long lsn = firstLsnOf(segments.get(first)) - 1;
+        if (lsn > afterLsn) throw new IOException("Journal is missing records after LSN " + afterLsn);
+
+        FileChannel channel = null;
+        for (int i = first; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            if (firstLsnOf(segment) != lsn + 1) throw new IOException("Gap in journal before " + segment);
+            if (channel != null) channel.close();
+            channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long end = replaySegment(channel, lsn, afterLsn, replay);
+            long valid = (end - lsn) * RECORD_SIZE;
+            if (valid < channel.size()) {
+                if (i < segments.size() - 1) throw new IOException("Corrupt journal segment " + segment);
+                channel.truncate(valid);
+            }
+            channel.position(valid);
+            lsn = end;
+        }
+        if (lsn < afterLsn) throw new IOException("Journal ends before snapshot LSN " + afterLsn);
+        return new Journal(base, channel, lsn);
+    }
+
+    // Returns the LSN of the last intact record, starting after prevLsn.
+    private static long replaySegment(FileChannel channel, long prevLsn, long afterLsn,
+                                      Consumer<Entry> replay) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE * 512);
+        long lsn = prevLsn;
+        while (true) {
+            buf.clear();
+            while (buf.hasRemaining() && channel.read(buf) > 0) { }
+            buf.flip();
+            while (buf.remaining() >= RECORD_SIZE) {
+                Entry e = decode(buf);
+                if (e == null || e.lsn() != lsn + 1) return lsn;
+                if (e.lsn() > afterLsn) replay.accept(e);
+                lsn = e.lsn();
+            }
+            if (buf.limit() < buf.capacity()) return lsn;  // end of file
+        }
+    }
+
+    // Deletes segments holding nothing after lsn. The active segment is never deleted.
+    void discardThrough(long lsn) throws IOException {
+        List<Path> segments = segments(base);
+        for (int i = 0; i + 1 < segments.size() && firstLsnOf(segments.get(i + 1)) <= lsn + 1; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private static List<Path> segments(Path base) throws IOException {
+        String prefix = base.getFileName() + ".";
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directoryOf(base), prefix + "*")) {
+            for (Path file : files) {
+                if (file.getFileName().toString().substring(prefix.length()).matches("\\d{20}")) result.add(file);
+            }
+        }
+        Collections.sort(result);  // zero-padded, so name order is LSN order
+        return result;
+    }
+
+    private static Path segmentPath(Path base, long firstLsn) {
+        return base.resolveSibling(base.getFileName() + "." + String.format("%020d", firstLsn));
+    }
+
+    private static long firstLsnOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(name.length() - 20));
+    }
+
+    private static Path directoryOf(Path file) {
+        return file.toAbsolutePath().getParent();
+    }
+
+    // Makes a created or renamed file's directory entry durable. Some platforms cannot open a
+    // directory for this; the rename itself is still atomic there.
+    static void syncDirectory(Path file) {
+        try (FileChannel dir = FileChannel.open(directoryOf(file), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // best effort
+        }
+    }
+
+    static byte kindOf(Account acc) {
+        return acc instanceof SavingsAccount ? AccountStore.SAVINGS : AccountStore.CHECKING;
+    }
+
+    static boolean fits(String text, int width) {
+        return text.getBytes(StandardCharsets.UTF_8).length <= width;
+    }
+
+    // Queues a record and returns its LSN; pass that to awaitDurable before acknowledging.
+    synchronized long append(byte type, byte kind, long amountA, long amountB, String textA, String textB) {
+        // Checked before an LSN is taken: a half-encoded record would break replay at this point.
+        if ((textA != null && !fits(textA, ACCOUNT_NUMBER_BYTES)) || (textB != null && !fits(textB, HOLDER_NAME_BYTES))) {
+            throw new IllegalArgumentException("Text too long for journal");
+        }
+        boolean interrupted = false;
+        while (!filling.hasRemaining() && failure == null && !closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        checkUsable();
+        long lsn = ++lastLsn;
+        encode(filling, lsn, type, kind, amountA, amountB, textA, textB);
+        notifyAll();
+        return lsn;
+    }
+
+    synchronized void awaitDurable(long lsn) {
+        boolean interrupted = false;
+        while (durableLsn < lsn && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (durableLsn < lsn) throw new UncheckedIOException("Journal write failed", failure);
+    }
+
+    synchronized long lastLsn() {
+        return lastLsn;
+    }
+
+    synchronized String stats() {
+        return String.format("Journal: %d records, %d forces (%.1f records per force)",
+                records, forces, forces == 0 ? 0.0 : (double) records / forces);
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.out.println("Error closing journal: " + e.getMessage());
+        }
+    }
+
+    private void checkUsable() {
+        if (failure != null) throw new UncheckedIOException("Journal write failed", failure);
+        if (closed) throw new IllegalStateException("Journal is closed");
+    }
+
+    private void run() {
+        long written;
+        synchronized (this) {
+            written = lastLsn;
+        }
+        while (true) {
+            long upTo;
+            int count;
+            synchronized (this) {
+                while (filling.position() == 0 && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (filling.position() == 0) return;  // closed and fully flushed
+                ByteBuffer full = filling;
+                filling = draining;
+                draining = full;
+                upTo = lastLsn;
+                count = draining.position() / RECORD_SIZE;
+                notifyAll();  // appenders waiting for buffer space
+            }
+            try {
+                if (channel.size() >= SEGMENT_BYTES) rollSegment(written + 1);
+                draining.flip();
+                while (draining.hasRemaining()) channel.write(draining);
+                channel.force(false);
+                draining.clear();
+                written = upTo;
+                synchronized (this) {
+                    durableLsn = upTo;
+                    records += count;
+                    forces++;
+                    notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    private void rollSegment(long firstLsn) throws IOException {
+        FileChannel next = FileChannel.open(segmentPath(base, firstLsn),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        syncDirectory(base);
+        channel.close();
+        channel = next;
+    }
+
+    private static void encode(ByteBuffer buf, long lsn, byte type, byte kind,
+                               long amountA, long amountB, String textA, String textB) {
+        int start = buf.position();
+        buf.putLong(lsn).put(type).put(kind).putShort((short) 0).putLong(amountA).putLong(amountB);
+        putText(buf, textA, ACCOUNT_NUMBER_BYTES);
+        putText(buf, textB, HOLDER_NAME_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(buf.duplicate().position(start).limit(start + RECORD_SIZE - 4));
+        buf.putInt((int) crc.getValue());
+    }
+
+    static void putText(ByteBuffer buf, String text, int width) {
+        byte[] bytes = text == null ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > width) throw new IllegalArgumentException("Text too long for journal: " + text);
+        buf.put(bytes);
+        for (int i = bytes.length; i < width; i++) buf.put((byte) 0);
+    }
+
+    // Returns null for a record whose checksum does not match.
+    private static Entry decode(ByteBuffer buf) {
+        int start = buf.position();
+        CRC32 crc = new CRC32();
+        crc.update(buf.duplicate().position(start).limit(start + RECORD_SIZE - 4));
+        if ((int) crc.getValue() != buf.getInt(start + RECORD_SIZE - 4)) return null;
+
+        long lsn = buf.getLong();
+        byte type = buf.get();
+        byte kind = buf.get();
+        buf.getShort();
+        long amountA = buf.getLong();
+        long amountB = buf.getLong();
+        String textA = getText(buf, ACCOUNT_NUMBER_BYTES);
+        String textB = getText(buf, HOLDER_NAME_BYTES);
+        buf.getInt();
+        return new Entry(lsn, type, kind, amountA, amountB, textA, textB);
+    }
+
+    static String getText(ByteBuffer buf, int width) {
+        byte[] bytes = new byte[width];
+        buf.get(bytes);
+        int len = 0;
+        while (len < width && bytes[len] != 0) len++;
+        return new String(bytes, 0, len, StandardCharsets.UTF_8);
+    }
+}
+
+// --- Checkpoint snapshot of every account ---
+// A HEADER_SIZE header (magic, version, entry size, LSN, account count, CRC32 of the first
+// 32 bytes) followed by one ENTRY_SIZE entry per account:
+//   0 byte kind, 1-7 reserved, 8 long balance in cents, 16 32B account number, 48 64B holder
+// Written through memory-mapped regions into a temporary file that is renamed over the
+// previous snapshot only once complete, so a crash mid-checkpoint leaves the old one intact.
+class Snapshot {
+    private static final long MAGIC = 0x42414E4B534E4150L;  // "BANKSNAP"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int ENTRY_SIZE = 112;
+    // Entries per mapping; regions keep each map well under 2 GB and load in parallel.
+    private static final int REGION_ENTRIES = 1 << 18;
+
+    // Returns the completed temporary file; publish makes it the current snapshot.
+    static Path writeTemp(Path path, long lsn, List<Account> accounts) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int first = 0; first < accounts.size(); first += REGION_ENTRIES) {
+                int n = Math.min(REGION_ENTRIES, accounts.size() - first);
+                MappedByteBuffer region = ch.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_SIZE + (long) first * ENTRY_SIZE, (long) n * ENTRY_SIZE);
+                for (int i = 0; i < n; i++) encode(region, accounts.get(first + i));
+                region.force();
+            }
+            MappedByteBuffer header = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.putLong(MAGIC).putInt(VERSION).putInt(ENTRY_SIZE).putLong(lsn).putLong(accounts.size());
+            header.putInt(headerCrc(header));
+            header.force();
         }
+        return tmp;
+    }
+
+    static void publish(Path tmp, Path path) throws IOException {
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Journal.syncDirectory(path);
+    }
+
+    // Hands every account to sink, from several threads at once, and returns the LSN the
+    // snapshot is consistent with, or 0 if there is no snapshot yet.
+    static long load(Path path, Consumer<Account> sink) throws IOException {
+        if (!Files.exists(path)) return 0;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_SIZE) throw new IOException("Snapshot is truncated");
+            MappedByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION || header.getInt(12) != ENTRY_SIZE
+                    || header.getInt(32) != headerCrc(header)) {
+                throw new IOException("Snapshot header is corrupt");
+            }
+            long lsn = header.getLong(16);
+            long count = header.getLong(24);
+            if (ch.size() < HEADER_SIZE + count * ENTRY_SIZE) throw new IOException("Snapshot is truncated");
+
+            int regions = (int) ((count + REGION_ENTRIES - 1) / REGION_ENTRIES);
+            IntStream.range(0, regions).parallel().forEach(r -> {
+                long first = (long) r * REGION_ENTRIES;
+                int n = (int) Math.min(REGION_ENTRIES, count - first);
+                try {
+                    MappedByteBuffer region = ch.map(FileChannel.MapMode.READ_ONLY,
+                            HEADER_SIZE + first * ENTRY_SIZE, (long) n * ENTRY_SIZE);
+                    for (int i = 0; i < n; i++) sink.accept(decode(region));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return lsn;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static int headerCrc(ByteBuffer header) {
+        CRC32 crc = new CRC32();
+        crc.update(header.duplicate().position(0).limit(32));
+        return (int) crc.getValue();
+    }
+
+    // Locks the account just long enough to read a balance consistent with its journal records.
+    private static void encode(ByteBuffer buf, Account acc) {
+        long balance;
+        acc.lock.lock();
+        try {
+            balance = acc.getBalanceCents();
+        } finally {
+            acc.lock.unlock();
+        }
+        buf.put(Journal.kindOf(acc));
+        buf.put(new byte[7]);
+        buf.putLong(balance);
+        Journal.putText(buf, acc.getAccountNumber(), Journal.ACCOUNT_NUMBER_BYTES);
+        Journal.putText(buf, acc.getHolderName(), Journal.HOLDER_NAME_BYTES);
+    }
+
+    private static Account decode(ByteBuffer buf) {
+        byte kind = buf.get();
+        buf.position(buf.position() + 7);
+        long balance = buf.getLong();
+        String number = Journal.getText(buf, Journal.ACCOUNT_NUMBER_BYTES);
+        String holder = Journal.getText(buf, Journal.HOLDER_NAME_BYTES);
+        return TransactionEngine.newAccount(kind, number, holder, balance);
     }
 }
 
 // --- Main Menu-Driven System ---
 public class BankSystem {
     private static final Scanner sc = new Scanner(System.in);
-    private static final Map<String, Account> accounts = new HashMap<>();
+    private static final String JOURNAL_FILE = "bank.journal";
+    private static final String SNAPSHOT_FILE = "bank.snapshot";
+    private static final long CHECKPOINT_INTERVAL_SECONDS = 60;
+    // The journaled TransactionEngine, or with --in-memory-store a PrimitiveAccountStore that
+    // is never journaled or checkpointed. Every menu operation goes through this interface.
+    private static AccountStore store;
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--stress-test")) {
+            runStressTest();
+            return;
+        }
+
+        TransactionEngine engine = null;
+        if (args.length > 0 && args[0].equals("--in-memory-store")) {
+            store = new PrimitiveAccountStore();
+            System.out.println("WARNING: In-memory store. Accounts are not saved and are lost on exit.");
+        } else {
+            try {
+                long start = System.nanoTime();
+                engine = TransactionEngine.recover(Path.of(JOURNAL_FILE), Path.of(SNAPSHOT_FILE));
+                if (engine.size() > 0) {
+                    System.out.printf("Recovered %d accounts in %d ms.%n",
+                            engine.size(), (System.nanoTime() - start) / 1_000_000);
+                }
+            } catch (IOException e) {
+                System.out.println("Error recovering accounts: " + e.getMessage());
+                return;
+            }
+            engine.startCheckpoints(CHECKPOINT_INTERVAL_SECONDS);
+            store = engine;
+        }
+
         int choice;
         do {
             System.out.println("\n===== Bank Account Management System =====");
@@ -97,20 +1173,27 @@ public class BankSystem {
             System.out.println("2. Deposit");
             System.out.println("3. Withdraw");
             System.out.println("4. Display Account Info");
-            System.out.println("5. Exit");
+            System.out.println("5. Transfer");
+            System.out.println("6. Exit");
             System.out.print("Enter choice: ");
             choice = sc.nextInt();
             sc.nextLine();
 
-            switch (choice) {
-                case 1 -> createAccount();
-                case 2 -> deposit();
-                case 3 -> withdraw();
-                case 4 -> displayAccount();
-                case 5 -> System.out.println("Exiting system...");
-                default -> System.out.println("Invalid choice!");
+            try {
+                switch (choice) {
+                    case 1 -> createAccount();
+                    case 2 -> deposit();
+                    case 3 -> withdraw();
+                    case 4 -> displayAccount();
+                    case 5 -> transfer();
+                    case 6 -> System.out.println("Exiting system...");
+                    default -> System.out.println("Invalid choice!");
+                }
+            } catch (UncheckedIOException e) {
+                System.out.println("Error: " + e.getMessage() + " (" + e.getCause().getMessage() + ")");
             }
-        } while (choice != 5);
+        } while (choice != 6);
+        if (engine != null) engine.close();
     }
 
     private static void createAccount() {
@@ -120,70 +1203,376 @@ public class BankSystem {
         System.out.print("Enter Account Number: ");
         String accNo = sc.nextLine();
 
-        if (accounts.containsKey(accNo)) {
+        if (store.balanceCents(accNo).isPresent()) {
             System.out.println("Error: Account number already exists.");
             return;
         }
+        if (!Journal.fits(accNo, Journal.ACCOUNT_NUMBER_BYTES)) {
+            System.out.println("Error: Account number is too long.");
+            return;
+        }
 
         System.out.print("Enter Holder Name: ");
         String name = sc.nextLine();
+        if (!Journal.fits(name, Journal.HOLDER_NAME_BYTES)) {
+            System.out.println("Error: Holder name is too long.");
+            return;
+        }
         System.out.print("Enter Initial Balance: ");
         double bal = sc.nextDouble();
 
-        Account acc = null;
-        if (type == 1) {
-            acc = new SavingsAccount(accNo, name, bal);
-            System.out.println("Savings Account created successfully!");
-        } else if (type == 2) {
-            acc = new CheckingAccount(accNo, name, bal);
-            System.out.println("Checking Account created successfully!");
-        } else {
+        if (type != 1 && type != 2) {
             System.out.println("Invalid account type!");
             return;
         }
 
-        accounts.put(accNo, acc);
+        // Another thread may have taken the number since the check above.
+        byte kind = type == 1 ? AccountStore.SAVINGS : AccountStore.CHECKING;
+        if (!store.open(accNo, name, kind, Account.toCents(bal))) {
+            System.out.println("Error: Account number already exists.");
+            return;
+        }
+        System.out.println((type == 1 ? "Savings" : "Checking") + " Account created successfully!");
     }
 
     private static void deposit() {
         System.out.print("Enter Account Number: ");
         String accNo = sc.nextLine();
-        Account acc = accounts.get(accNo);
 
-        if (acc == null) {
+        if (store.balanceCents(accNo).isEmpty()) {
             System.out.println("Account not found!");
             return;
         }
 
         System.out.print("Enter Deposit Amount: ");
         double amount = sc.nextDouble();
-        acc.deposit(amount);
+        printResult(store.deposit(accNo, Account.toCents(amount)), accNo, "Deposit");
     }
 
     private static void withdraw() {
         System.out.print("Enter Account Number: ");
         String accNo = sc.nextLine();
-        Account acc = accounts.get(accNo);
 
-        if (acc == null) {
+        if (store.balanceCents(accNo).isEmpty()) {
             System.out.println("Account not found!");
             return;
         }
 
         System.out.print("Enter Withdraw Amount: ");
         double amount = sc.nextDouble();
-        acc.withdraw(amount); // <-- Polymorphic call
+        printResult(store.withdraw(accNo, Account.toCents(amount)), accNo, "Withdrawal");
+    }
+
+    private static void transfer() {
+        System.out.print("Enter Source Account Number: ");
+        String from = sc.nextLine();
+        System.out.print("Enter Destination Account Number: ");
+        String to = sc.nextLine();
+        System.out.print("Enter Transfer Amount: ");
+        double amount = sc.nextDouble();
+
+        printResult(store.transfer(from, to, Account.toCents(amount)), from, "Transfer");
     }
 
     private static void displayAccount() {
         System.out.print("Enter Account Number: ");
         String accNo = sc.nextLine();
-        Account acc = accounts.get(accNo);
+        OptionalLong balance = store.balanceCents(accNo);
 
-        if (acc == null) {
+        if (balance.isEmpty()) {
             System.out.println("Account not found!");
-        } else {
-            acc.displayAccountInfo();
+            return;
+        }
+        System.out.println("----------------------------------------");
+        System.out.println("Account Number: " + accNo);
+        System.out.println("Holder Name:    " + store.holderName(accNo).orElse(""));
+        System.out.println("Balance:        " + balance.getAsLong() / 100.0);
+        System.out.println("----------------------------------------");
+    }
+
+    // accNo is the account whose new balance is shown on success (the source, for transfers).
+    private static void printResult(AccountStore.Result result, String accNo, String operation) {
+        switch (result) {
+            case OK -> System.out.println(operation + " successful! New Balance: "
+                    + store.balanceCents(accNo).getAsLong() / 100.0);
+            case NO_SUCH_ACCOUNT -> System.out.println("Account not found!");
+            case INVALID_AMOUNT -> System.out.println("Error: " + operation + " amount must be positive.");
+            case SAME_ACCOUNT -> System.out.println("Error: Cannot transfer to the same account.");
+            case LIMIT_EXCEEDED -> System.out.println("Error: " + operation
+                    + " would breach the account's minimum balance or overdraft limit.");
+        }
+    }
+
+    // java BankSystem --stress-test
+    // For each account store: measures deposit/withdraw throughput as threads are added, each
+    // thread on its own account; drains one savings and one checking account from every thread
+    // at once and checks that neither ends past its limit; then runs random transfers and a
+    // large batch across many accounts and checks that no money is created or lost. Finally
+    // runs journaled operations with checkpoints taken mid-load in a scratch directory, checks
+    // that recovery rebuilds them exactly, times recovery of a large snapshot, and compares
+    // the heap footprint of the two stores.
+    private static void runStressTest() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        try {
+            runStoreTests("Object store", TransactionEngine::new, cores);
+            runStoreTests("Primitive store", PrimitiveAccountStore::new, cores);
+            runJournalTest(cores * 2);
+            runFootprintTest();
+        } catch (InterruptedException e) {
+            System.out.println("Stress test interrupted.");
+        } catch (IOException e) {
+            System.out.println("Stress test error: " + e.getMessage());
+        }
+    }
+
+    private static void runStoreTests(String label, Supplier<AccountStore> newStore, int cores)
+            throws InterruptedException {
+        System.out.println("--- " + label + " ---");
+        int pairsPerThread = 500_000;
+        double baseline = 0;
+        // 1, 2, 4, ... threads, always finishing at the core count.
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            AccountStore bench = newStore.get();
+            for (int t = 0; t < threads; t++) bench.open("BENCH-" + t, "Bench", AccountStore.CHECKING, 0);
+            double seconds = runConcurrently(threads, t -> {
+                String accNo = "BENCH-" + t;
+                for (int i = 0; i < pairsPerThread; i++) {
+                    bench.deposit(accNo, 100);
+                    bench.withdraw(accNo, 100);
+                }
+            });
+            double opsPerSec = threads * pairsPerThread * 2 / seconds;
+            if (threads == 1) baseline = opsPerSec;
+            System.out.printf("Threads: %2d  %,.0f ops/sec  (%.1fx)%n", threads, opsPerSec, opsPerSec / baseline);
+            if (threads == cores) break;
+        }
+
+        int threads = cores * 2;
+        int attemptsPerThread = 1_000;
+        AccountStore drain = newStore.get();
+        drain.open("DRAIN-S", "Drain", AccountStore.SAVINGS, 150_000);
+        drain.open("DRAIN-C", "Drain", AccountStore.CHECKING, 0);
+        AtomicInteger savingsOk = new AtomicInteger();
+        AtomicInteger checkingOk = new AtomicInteger();
+        runConcurrently(threads, t -> {
+            for (int i = 0; i < attemptsPerThread; i++) {
+                if (drain.withdraw("DRAIN-S", 100) == AccountStore.Result.OK) savingsOk.incrementAndGet();
+                if (drain.withdraw("DRAIN-C", 100) == AccountStore.Result.OK) checkingOk.incrementAndGet();
+            }
+        });
+        long savings = drain.balanceCents("DRAIN-S").getAsLong();
+        long checking = drain.balanceCents("DRAIN-C").getAsLong();
+        boolean passed = savingsOk.get() == 1_000 && savings == 50_000
+                && checkingOk.get() == 1_000 && checking == -100_000;
+        System.out.printf("Savings: %d withdrawals, balance %.2f; Checking: %d withdrawals, balance %.2f%n",
+                savingsOk.get(), savings / 100.0, checkingOk.get(), checking / 100.0);
+        System.out.println(passed ? "PASSED: limits held under contention." : "FAILED: a limit was breached!");
+
+        runConservationTest(newStore.get(), threads);
+    }
+
+    private static void runConservationTest(AccountStore bank, int threads) throws InterruptedException {
+        int accountCount = 1_000;
+        int transfersPerThread = 100_000;
+        int batchSize = 100_000;
+        String[] numbers = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            numbers[i] = String.format("ACC-%04d", i);
+            bank.open(numbers[i], "Load", i % 2 == 0 ? AccountStore.SAVINGS : AccountStore.CHECKING, 100_000);
+        }
+        long expected = bank.totalCents();
+
+        // Audits the total while transfers are in flight; it must never differ.
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger audits = new AtomicInteger();
+        AtomicInteger badAudits = new AtomicInteger();
+        Thread auditor = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    if (bank.totalCents() != expected) badAudits.incrementAndGet();
+                    audits.incrementAndGet();
+                    Thread.sleep(5);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "conservation-auditor");
+        auditor.start();
+
+        AtomicInteger applied = new AtomicInteger();
+        double seconds = runConcurrently(threads, t -> {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            for (int i = 0; i < transfersPerThread; i++) {
+                // Every other transfer leaves one of ten hot accounts, to force lock contention.
+                String from = numbers[rnd.nextInt(i % 2 == 0 ? 10 : accountCount)];
+                String to = numbers[rnd.nextInt(accountCount)];
+                if (bank.transfer(from, to, rnd.nextLong(1, 50_000)) == AccountStore.Result.OK) {
+                    applied.incrementAndGet();
+                }
+            }
+        });
+        System.out.printf("Transfers: %d attempted, %d applied (%,.0f transfers/sec)%n",
+                threads * transfersPerThread, applied.get(), threads * transfersPerThread / seconds);
+
+        // Batch transfers stay inside blocks of ten accounts, giving transferAll independent
+        // groups to spread across threads; fully random pairs would chain into one group.
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        List<AccountStore.Transfer> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            int block = rnd.nextInt(accountCount / 10) * 10;
+            batch.add(new AccountStore.Transfer(numbers[block + rnd.nextInt(10)],
+                    numbers[block + rnd.nextInt(10)], rnd.nextLong(1, 50_000)));
+        }
+        long start = System.nanoTime();
+        AccountStore.Result[] results = bank.transferAll(batch);
+        double batchSeconds = (System.nanoTime() - start) / 1e9;
+        long batchApplied = Arrays.stream(results).filter(r -> r == AccountStore.Result.OK).count();
+        System.out.printf("Batch: %d transfers, %d applied (%,.0f transfers/sec)%n",
+                batchSize, batchApplied, batchSize / batchSeconds);
+
+        running.set(false);
+        auditor.join();
+        long actual = bank.totalCents();
+        boolean withinLimits = true;
+        for (int i = 0; i < accountCount; i++) {
+            long floor = AccountStore.floorCents(i % 2 == 0 ? AccountStore.SAVINGS : AccountStore.CHECKING);
+            if (bank.balanceCents(numbers[i]).getAsLong() < floor) withinLimits = false;
+        }
+        boolean passed = actual == expected && badAudits.get() == 0 && withinLimits;
+        System.out.printf("Total: %.2f -> %.2f, %d mid-run audits, %d mismatched%n",
+                expected / 100.0, actual / 100.0, audits.get(), badAudits.get());
+        System.out.println(passed ? "PASSED: money conserved, all limits held." : "FAILED: money was created or lost!");
+    }
+
+    private static void runJournalTest(int threads) throws IOException, InterruptedException {
+        int accountCount = 100;
+        int opsPerThread = 2_000;
+        Path scratch = Files.createTempDirectory("bank-stress");
+        Path journalBase = scratch.resolve("bank.journal");
+        Path snapshot = scratch.resolve("bank.snapshot");
+        try {
+            TransactionEngine bank = TransactionEngine.recover(journalBase, snapshot);
+            for (int i = 0; i < accountCount; i++) {
+                bank.open(new CheckingAccount(String.format("J-%03d", i), "Journal", 0.0));
+            }
+
+            // Checkpoints run alongside the writers; recovery must still come out exact.
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicInteger checkpoints = new AtomicInteger();
+            Thread checkpointer = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        bank.checkpoint();
+                        checkpoints.incrementAndGet();
+                        Thread.sleep(20);
+                    }
+                } catch (IOException e) {
+                    System.out.println("Checkpoint failed: " + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "stress-checkpointer");
+            checkpointer.start();
+
+            double seconds = runConcurrently(threads, t -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < opsPerThread; i++) {
+                    String a = String.format("J-%03d", rnd.nextInt(accountCount));
+                    String b = String.format("J-%03d", rnd.nextInt(accountCount));
+                    switch (i % 3) {
+                        case 0 -> bank.deposit(a, rnd.nextLong(1, 10_000));
+                        case 1 -> bank.withdraw(a, rnd.nextLong(1, 10_000));
+                        default -> bank.transfer(a, b, rnd.nextLong(1, 10_000));
+                    }
+                }
+            });
+            running.set(false);
+            checkpointer.join();
+            System.out.printf("Journaled: %d operations (%,.0f ops/sec), %d checkpoints. %s%n",
+                    threads * opsPerThread, threads * opsPerThread / seconds, checkpoints.get(), bank.journalStats());
+            Map<String, Long> before = balancesOf(bank);
+            bank.close();
+
+            TransactionEngine recovered = TransactionEngine.recover(journalBase, snapshot);
+            Map<String, Long> after = balancesOf(recovered);
+            System.out.println(before.equals(after)
+                    ? "PASSED: snapshot plus journal tail rebuilt all " + after.size() + " accounts."
+                    : "FAILED: recovered balances differ!");
+
+            int bulk = 200_000;
+            for (int i = 0; i < bulk; i++) {
+                recovered.open(new SavingsAccount(String.format("BULK-%07d", i), "Bulk", 1_000.0));
+            }
+            recovered.checkpoint();
+            recovered.close();
+            long start = System.nanoTime();
+            TransactionEngine reloaded = TransactionEngine.recover(journalBase, snapshot);
+            System.out.printf("Recovered %,d accounts from snapshot in %d ms.%n",
+                    reloaded.size(), (System.nanoTime() - start) / 1_000_000);
+            reloaded.close();
+        } finally {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(scratch)) {
+                for (Path file : files) Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(scratch);
+        }
+    }
+
+    private static Map<String, Long> balancesOf(TransactionEngine bank) {
+        Map<String, Long> balances = new HashMap<>();
+        for (Account acc : bank.all()) balances.put(acc.getAccountNumber(), acc.getBalanceCents());
+        return balances;
+    }
+
+    // Loads the same accounts into each store and compares retained heap and full-GC time.
+    private static void runFootprintTest() {
+        int count = 1_000_000;
+        Map<String, Supplier<AccountStore>> stores = new LinkedHashMap<>();
+        stores.put("Object store", TransactionEngine::new);
+        stores.put("Primitive store", PrimitiveAccountStore::new);
+        for (Map.Entry<String, Supplier<AccountStore>> entry : stores.entrySet()) {
+            System.gc();
+            long baseHeap = usedHeap();
+            AccountStore store = entry.getValue().get();
+            for (int i = 0; i < count; i++) {
+                store.open(String.format("FP-%07d", i), "Footprint Holder",
+                        i % 2 == 0 ? AccountStore.SAVINGS : AccountStore.CHECKING, 100_000);
+            }
+            System.gc();
+            long retained = usedHeap() - baseHeap;
+            long start = System.nanoTime();
+            System.gc();
+            long gcMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("%s: %,d accounts, %,d MB retained, full GC %d ms%n",
+                    entry.getKey(), store.size(), retained / (1024 * 1024), gcMillis);
+            Reference.reachabilityFence(store);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    // Runs body(threadIndex) on that many threads released together; returns elapsed seconds.
+    private static double runConcurrently(int threads, IntConsumer body) throws InterruptedException {
+        CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            workers.submit(() -> {
+                try {
+                    startGate.await();
+                    body.accept(index);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
         }
+        long start = System.nanoTime();
+        startGate.countDown();
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.MINUTES);
+        return (System.nanoTime() - start) / 1e9;
     }
 }